@@ -3,17 +3,26 @@ package namlit.siteswapgenerator;
 import android.content.Intent;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.os.Handler;
 import android.text.Html;
 import android.view.View;
 import android.widget.TextView;
 
 import java.util.Vector;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import siteswaplib.Siteswap;
+import siteswaplib.SiteswapAnalysis;
 
 public class DetailedSiteswapActivity extends AppCompatActivity {
 
     private Siteswap mSiteswap;
+    // Analyses of all rotations of the siteswap, mRotation is the shown one
+    private SiteswapAnalysis[] mRotations;
+    private int mRotation = 0;
+    private ExecutorService mAnalysisExecutor;
+    private Handler mHandler;
     private TextView mGlobalSiteswapTextview;
     private TextView mLocalSiteswapTextview;
     private TextView mIntefaceTextview;
@@ -43,30 +52,75 @@ public class DetailedSiteswapActivity extends AppCompatActivity {
         mIsValidTextview = (TextView) findViewById(R.id.is_valid_text_view);
         mLocalSiteswapLegendTextview = (TextView) findViewById(R.id.local_siteswap_legend_textview);
 
-        updateTextViews();
+        mLocalSiteswapLegendTextview.setText(Html.fromHtml(getString(R.string.detailed_siteswap__legend_html)));
 
+        mHandler = new Handler();
+        mAnalysisExecutor = Executors.newSingleThreadExecutor();
+        mRotations = SiteswapAnalysis.createRotations(mSiteswap);
+        showRotation();
+
+        // Precompute the other rotations, so that rotating needs no calculation
+        mAnalysisExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (SiteswapAnalysis rotation : mRotations)
+                    rotation.analyze();
+            }
+        });
     }
 
-    public void updateTextViews() {
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mAnalysisExecutor.shutdownNow();
+        mHandler.removeCallbacksAndMessages(null);
+    }
 
-        mIntefaceTextview.setText(mSiteswap.toInterface().toString());
-        mIntefacePatternTextview.setText(mSiteswap.toInterface().toPattern().toString());
-        mNumberOfObjectsTextview.setText(String.valueOf(mSiteswap.getNumberOfObjects()));
-        mPeriodLengthTextview.setText(String.valueOf(mSiteswap.period_length()));
-        mIsValidTextview.setText(String.valueOf(mSiteswap.isValid()));
+    /**
+     * Shows the current rotation. If it is not analysed yet, it is analysed in
+     * the background and shown afterwards.
+     * */
+    private void showRotation() {
+        final SiteswapAnalysis analysis = mRotations[mRotation];
+        if (analysis.isAnalyzed()) {
+            updateTextViews(analysis);
+            return;
+        }
+        mAnalysisExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                analysis.analyze();
+                mHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mRotations[mRotation] == analysis)
+                            updateTextViews(analysis);
+                    }
+                });
+            }
+        });
+    }
 
+    public void updateTextViews(SiteswapAnalysis analysis) {
 
-        String globalHtmlString = mSiteswap.calculateGetin().toString() +
-                " <big>" + mSiteswap.toString() + " </big> " +
-                mSiteswap.calculateGetout().toString();
+        mIntefaceTextview.setText(analysis.getInterface().toString());
+        mIntefacePatternTextview.setText(analysis.getInterfacePattern().toString());
+        mNumberOfObjectsTextview.setText(String.valueOf(analysis.getNumberOfObjects()));
+        mPeriodLengthTextview.setText(String.valueOf(analysis.getPeriodLength()));
+        mIsValidTextview.setText(String.valueOf(analysis.isValid()));
+
+
+        String globalHtmlString = analysis.getGetin().toString() +
+                " <big>" + analysis.getSiteswapString() + " </big> " +
+                analysis.getGetout().toString();
         mGlobalSiteswapTextview.setText(Html.fromHtml(globalHtmlString));
 
         String localHtmlString = "<big>Local Siteswap:</big><br>";
-        Vector<String> localSiteswapStrings = mSiteswap.toLocalString();
-        Siteswap[] localGetins = mSiteswap.calculateLocalGetins();
-        Siteswap[] localGetouts = mSiteswap.calculateLocalGetouts();
+        Vector<String> localSiteswapStrings = analysis.getLocalSiteswapStrings();
+        Siteswap[] localGetins = analysis.getLocalGetins();
+        Siteswap[] localGetouts = analysis.getLocalGetouts();
 
-        for(int i = 0; i < mSiteswap.getNumberOfJugglers(); ++i) {
+        for(int i = 0; i < analysis.getNumberOfJugglers(); ++i) {
             localHtmlString += Character.toString((char) ('A' + i));
             // initial clubs in hands
             localHtmlString += ": ";
@@ -78,17 +132,15 @@ public class DetailedSiteswapActivity extends AppCompatActivity {
 
         mLocalSiteswapTextview.setText(Html.fromHtml(localHtmlString));
         //mLocalSiteswapTextview.setText(Html.fromHtml("Juggler A: 4 2.5 3.5"));
-
-        mLocalSiteswapLegendTextview.setText(Html.fromHtml(getString(R.string.detailed_siteswap__legend_html)));
     }
 
     public void rotateLeft(View view) {
-        mSiteswap.rotateLeft(1);
-        updateTextViews();
+        mRotation = (mRotation + 1) % mRotations.length;
+        showRotation();
     }
 
     public void rotateRight(View view) {
-        mSiteswap.rotateRight(1);
-        updateTextViews();
+        mRotation = (mRotation + mRotations.length - 1) % mRotations.length;
+        showRotation();
     }
 }
@@ -0,0 +1,55 @@
+package namlit.siteswapgenerator;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.TreeSet;
+
+import siteswaplib.Filter;
+import siteswaplib.FilterListFormat;
+
+/**
+ * Named filter lists, stored in their own shared preferences in the format of
+ * FilterListFormat. Loading a preset only decodes its short string.
+ */
+public class FilterPresets {
+
+    private SharedPreferences mPreferences;
+
+    public FilterPresets(Context context) {
+        mPreferences = context.getSharedPreferences(
+                context.getString(R.string.filter_presets__preferences_name), Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Returns the names of all presets in alphabetical order
+     * */
+    public String[] getNames() {
+        TreeSet<String> names = new TreeSet<String>(mPreferences.getAll().keySet());
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * Returns null, if the preset does not exist or can not be decoded.
+     * */
+    public LinkedList<Filter> load(String name) {
+        String token = mPreferences.getString(name, null);
+        if (token == null)
+            return null;
+        try {
+            return FilterListFormat.decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    public void save(String name, List<Filter> filterList) {
+        mPreferences.edit().putString(name, FilterListFormat.encode(filterList)).apply();
+    }
+
+    public void remove(String name) {
+        mPreferences.edit().remove(name).apply();
+    }
+}
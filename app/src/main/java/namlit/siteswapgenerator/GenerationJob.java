@@ -0,0 +1,121 @@
+package namlit.siteswapgenerator;
+
+import siteswaplib.CompressedSiteswapList;
+import siteswaplib.Siteswap;
+import siteswaplib.SiteswapGenerator;
+import siteswaplib.SiteswapSink;
+
+/**
+ * A siteswap generation, that runs independently of any activity. The results are
+ * collected in a CompressedSiteswapList, which is also used as lock for all
+ * accesses to it. An activity can attach a listener to get notified about new
+ * results; the listener is called on the generator thread.
+ */
+public class GenerationJob implements SiteswapSink, Runnable {
+
+    public interface Listener {
+        void onGenerationProgress(GenerationJob job);
+        void onGenerationFinished(GenerationJob job);
+    }
+
+    private final int mId;
+    private final SiteswapGenerator mGenerator;
+    private final CompressedSiteswapList mSiteswaps;
+    private volatile Listener mListener = null;
+    private volatile boolean mIsFinished = false;
+    private volatile boolean mIsCancelled = false;
+    private volatile boolean mNoTimeout = true;
+
+    public GenerationJob(int id, SiteswapGenerator generator) {
+        mId = id;
+        mGenerator = generator;
+        mSiteswaps = new CompressedSiteswapList(generator.getNumberOfJugglers());
+    }
+
+    @Override
+    public void run() {
+        // The results are only kept in the compressed list of the job
+        mGenerator.setStoringResults(false);
+        mGenerator.setSiteswapSink(this);
+        mNoTimeout = mGenerator.generateSiteswaps();
+        mGenerator.setSiteswapSink(null);
+        mIsFinished = true;
+        Listener listener = mListener;
+        if (listener != null)
+            listener.onGenerationFinished(this);
+    }
+
+    @Override
+    public boolean onSiteswapGenerated(Siteswap siteswap) {
+        synchronized (mSiteswaps) {
+            mSiteswaps.add(siteswap);
+        }
+        Listener listener = mListener;
+        if (listener != null)
+            listener.onGenerationProgress(this);
+        return !mIsCancelled;
+    }
+
+    public void attach(Listener listener) {
+        mListener = listener;
+    }
+
+    public void detach(Listener listener) {
+        if (mListener == listener)
+            mListener = null;
+    }
+
+    /**
+     * The search stops within a few thousand nodes, even if it finds no more results.
+     * */
+    public void cancel() {
+        mIsCancelled = true;
+        mGenerator.cancel();
+    }
+
+    public int getId() {
+        return mId;
+    }
+
+    public SiteswapGenerator getGenerator() {
+        return mGenerator;
+    }
+
+    /**
+     * Entries must only be read while holding the lock of the list.
+     * */
+    public CompressedSiteswapList getSiteswaps() {
+        return mSiteswaps;
+    }
+
+    public int getNumberOfResults() {
+        synchronized (mSiteswaps) {
+            return mSiteswaps.size();
+        }
+    }
+
+    public boolean isFinished() {
+        return mIsFinished;
+    }
+
+    public boolean isCancelled() {
+        return mIsCancelled;
+    }
+
+    public boolean isNoTimeout() {
+        return mNoTimeout;
+    }
+
+    /**
+     * Returns true, if the job can serve a request with the given parameters,
+     * either because it is still running or because its results are complete.
+     * */
+    public boolean isReusableFor(SiteswapGenerator generator) {
+        if (mIsCancelled || generator.isRandomGeneration() ||
+                !mGenerator.hasSameParameters(generator))
+            return false;
+        if (!mIsFinished)
+            return true;
+        return mNoTimeout || getNumberOfResults() == mGenerator.getMaxResults();
+    }
+}
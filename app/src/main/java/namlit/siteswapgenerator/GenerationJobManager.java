@@ -0,0 +1,74 @@
+package namlit.siteswapgenerator;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import siteswaplib.SiteswapGenerator;
+
+/**
+ * Process wide owner of all siteswap generations. Activities only keep the id of
+ * a job and attach to it, so that a running generation survives configuration
+ * changes. Finished jobs are kept, so that identical requests can reuse them.
+ */
+public class GenerationJobManager {
+
+    private static final int MAX_FINISHED_JOBS = 4;
+
+    private static GenerationJobManager sInstance = null;
+
+    // Searches are CPU bound, further jobs wait in the queue of the pool
+    private final ExecutorService mExecutor = Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors());
+    private final LinkedHashMap<Integer, GenerationJob> mJobs = new LinkedHashMap<Integer, GenerationJob>();
+    private int mNextJobId = 1;
+
+    public static synchronized GenerationJobManager getInstance() {
+        if (sInstance == null)
+            sInstance = new GenerationJobManager();
+        return sInstance;
+    }
+
+    /**
+     * Returns a running or finished job with the same parameters, or starts a new one.
+     * */
+    public synchronized GenerationJob startJob(SiteswapGenerator generator) {
+        for (GenerationJob job : mJobs.values()) {
+            if (job.isReusableFor(generator))
+                return job;
+        }
+
+        GenerationJob job = new GenerationJob(mNextJobId++, generator);
+        mJobs.put(job.getId(), job);
+        removeOldJobs();
+        mExecutor.execute(job);
+        return job;
+    }
+
+    public synchronized GenerationJob getJob(int id) {
+        return mJobs.get(id);
+    }
+
+    public synchronized void cancelJob(int id) {
+        GenerationJob job = mJobs.remove(id);
+        if (job != null)
+            job.cancel();
+    }
+
+    private void removeOldJobs() {
+        int finishedJobs = 0;
+        for (GenerationJob job : mJobs.values()) {
+            if (job.isFinished())
+                finishedJobs++;
+        }
+        // Iteration order is insertion order, so the oldest jobs are removed first
+        Iterator<GenerationJob> it = mJobs.values().iterator();
+        while (finishedJobs > MAX_FINISHED_JOBS && it.hasNext()) {
+            if (it.next().isFinished()) {
+                it.remove();
+                finishedJobs--;
+            }
+        }
+    }
+}
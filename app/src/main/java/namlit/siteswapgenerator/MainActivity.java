@@ -7,6 +7,7 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageInfo;
 import android.content.pm.PackageManager;
+import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.util.Base64;
@@ -24,11 +25,14 @@ import android.text.TextWatcher;
 import android.text.Editable;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.lang.ref.WeakReference;
 import java.util.LinkedList;
 import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import siteswaplib.*;
 
@@ -37,6 +41,12 @@ public class MainActivity extends AppCompatActivity
 
     final static int PATTERN_FILTER_ITEM_NUMBER = 0;
 
+    // The estimate is started, when the parameters were not changed for this time
+    private static final int ESTIMATE_DELAY_MILLIS = 400;
+    private static final int ESTIMATE_PROBES = 2000;
+    // Longer timeouts are not suggested, because nobody waits that long in front of a phone
+    private static final int MAX_SUGGESTED_TIMEOUT_SECONDS = 600;
+
     private LinkedList<Filter> mFilterList;
 
     private EditText mNumberOfObjects;
@@ -53,6 +63,68 @@ public class MainActivity extends AppCompatActivity
     private Spinner mFilterTypeSpinner;
     private NonScrollListView mFilterListView;
     private ArrayAdapter<Filter> mFilterListAdapter;
+    private TextView mEstimateTextView;
+
+    private Handler mHandler;
+    private ExecutorService mEstimateExecutor;
+    private Future<?> mEstimateFuture = null;
+    private int mEstimateRequestId = 0;
+    private SearchTreeEstimate mEstimate = null;
+    private SiteswapGenerator mEstimateGenerator = null;
+    private boolean mIsSettingsApplied = false;
+    // isDestroyed() requires API 17
+    private volatile boolean mIsDestroyed = false;
+
+    // Loading and saving of the settings is done in order on one thread, that
+    // outlives the activity, so that a pending save is never lost
+    private static final ExecutorService sSettingsExecutor = Executors.newSingleThreadExecutor();
+
+    private static class Settings {
+        int numberOfObjects;
+        int periodLength;
+        int maxThrow;
+        int minThrow;
+        int numberOfJugglers;
+        int maxResults;
+        int timeout;
+        boolean isRandomGenerationMode;
+        boolean isZips;
+        boolean isZaps;
+        boolean isHolds;
+        int filterSpinnerPosition;
+        LinkedList<Filter> filterList = null;
+        boolean isFilterListError = false;
+    }
+
+    /**
+     * Loads the settings on the settings thread and applies them on the UI thread.
+     * Only a weak reference to the activity is kept, so that a pending load does
+     * not keep a destroyed activity alive.
+     * */
+    private static class SettingsLoader implements Runnable {
+        private final WeakReference<MainActivity> mActivity;
+
+        SettingsLoader(MainActivity activity) {
+            mActivity = new WeakReference<MainActivity>(activity);
+        }
+
+        @Override
+        public void run() {
+            MainActivity activity = mActivity.get();
+            if (activity == null || activity.mIsDestroyed)
+                return;
+            final Settings settings = activity.loadSettings();
+            activity.runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    // The activity may have been destroyed, e.g. by a rotation
+                    MainActivity currentActivity = mActivity.get();
+                    if (currentActivity != null && !currentActivity.mIsDestroyed)
+                        currentActivity.applySettings(settings);
+                }
+            });
+        }
+    }
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -72,52 +144,12 @@ public class MainActivity extends AppCompatActivity
         mFilterTypeSpinner  = (Spinner) findViewById(R.id.filter_type_spinner);
         mFilterListView     = (NonScrollListView) findViewById(R.id.filter_list);
         mRandomGenerationModeCheckbox = (CheckBox) findViewById(R.id.random_generation_mode_checkbox);
+        mEstimateTextView   = (TextView) findViewById(R.id.estimate_text_view);
 
-        mFilterList = new LinkedList<Filter>();
-
-        SharedPreferences sharedPref = getPreferences(Context.MODE_PRIVATE);
-        int numberOfObjects  = sharedPref.getInt(getString(R.string.main_activity__settings_number_of_objects),  7);
-        int periodLength     = sharedPref.getInt(getString(R.string.main_activity__settings_period_length),      5);
-        int maxThrow         = sharedPref.getInt(getString(R.string.main_activity__settings_max_throw),         10);
-        int minThrow         = sharedPref.getInt(getString(R.string.main_activity__settings_min_throw),          2);
-        int numberOfJugglers = sharedPref.getInt(getString(R.string.main_activity__settings_number_of_jugglers), 2);
-        int maxResults       = sharedPref.getInt(getString(R.string.main_activity__settings_max_results),      100);
-        int timeout          = sharedPref.getInt(getString(R.string.main_activity__settings_timeout),            5);
-        boolean isZips       = sharedPref.getBoolean(getString(R.string.main_activity__settings_is_zips), true);
-        boolean isZaps       = sharedPref.getBoolean(getString(R.string.main_activity__settings_is_zaps), false);
-        boolean isHolds      = sharedPref.getBoolean(getString(R.string.main_activity__settings_is_holds), false);
-        boolean isRandomGenerationMode = sharedPref.getBoolean(
-                getString(R.string.main_activity__settings_is_random_generation_mode), false);
-        int filterSpinnerPosition = sharedPref.getInt(getString(R.string.main_activity__settings_filter_spinner_position), 0);
-        String serializedFilterList = sharedPref.getString(getString(R.string.main_activity__settings_filter_list), "");
-
-        if (serializedFilterList != "") {
-            try {
-                byte b[] = Base64.decode(serializedFilterList, Base64.DEFAULT);
-                ByteArrayInputStream bi = new ByteArrayInputStream(b);
-                ObjectInputStream si = new ObjectInputStream(bi);
-                mFilterList = (LinkedList<Filter>) si.readObject();
-                si.close();
-            } catch (Exception e) {
-                Toast.makeText(this, getString(R.string.main_activity__deserialization_error_toast),
-                        Toast.LENGTH_SHORT).show();
-            }
-        }
-
-
-        mNumberOfObjects.setText(String.valueOf(numberOfObjects));
-        mPeriodLength.setText(String.valueOf(periodLength));
-        mMaxThrow.setText(String.valueOf(maxThrow));
-        mMinThrow.setText(String.valueOf(minThrow));
-        mNumberOfJugglers.setText(String.valueOf(numberOfJugglers));
-        mMaxResults.setText(String.valueOf(maxResults));
-        mTimeout.setText(String.valueOf(timeout));
-        mRandomGenerationModeCheckbox.setChecked(isRandomGenerationMode);
-        mZipsCheckbox.setChecked(isZips);
-        mZapsCheckbox.setChecked(isZaps);
-        mHoldsCheckbox.setChecked(isHolds);
-        mFilterTypeSpinner.setSelection(filterSpinnerPosition);
+        mHandler = new Handler();
+        mEstimateExecutor = Executors.newSingleThreadExecutor();
 
+        mFilterList = new LinkedList<Filter>();
 
         mFilterListAdapter = new ArrayAdapter<Filter>(
                 this, android.R.layout.simple_list_item_1, mFilterList);
@@ -151,6 +183,34 @@ public class MainActivity extends AppCompatActivity
             }
         });
 
+        // The settings are loaded in the background. Until they are applied,
+        // the input fields are empty and not saved.
+        sSettingsExecutor.execute(new SettingsLoader(this));
+    }
+
+    private void applySettings(Settings settings) {
+        if (settings.isFilterListError)
+            Toast.makeText(this, getString(R.string.main_activity__deserialization_error_toast),
+                    Toast.LENGTH_SHORT).show();
+
+        mNumberOfObjects.setText(String.valueOf(settings.numberOfObjects));
+        mPeriodLength.setText(String.valueOf(settings.periodLength));
+        mMaxThrow.setText(String.valueOf(settings.maxThrow));
+        mMinThrow.setText(String.valueOf(settings.minThrow));
+        mNumberOfJugglers.setText(String.valueOf(settings.numberOfJugglers));
+        mMaxResults.setText(String.valueOf(settings.maxResults));
+        mTimeout.setText(String.valueOf(settings.timeout));
+        mRandomGenerationModeCheckbox.setChecked(settings.isRandomGenerationMode);
+        mZipsCheckbox.setChecked(settings.isZips);
+        mZapsCheckbox.setChecked(settings.isZaps);
+        mHoldsCheckbox.setChecked(settings.isHolds);
+        mFilterTypeSpinner.setSelection(settings.filterSpinnerPosition);
+        if (settings.filterList != null) {
+            mFilterList.clear();
+            mFilterList.addAll(settings.filterList);
+        }
+        mIsSettingsApplied = true;
+
         updateAutoFilters();
 
         mNumberOfJugglers.addTextChangedListener(new TextWatcher() {
@@ -175,7 +235,35 @@ public class MainActivity extends AppCompatActivity
             }
         });
 
+        TextWatcher estimateTextWatcher = new TextWatcher() {
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) { }
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+            @Override
+            public void afterTextChanged(Editable s) {
+                scheduleEstimate();
+            }
+        };
+        mNumberOfObjects.addTextChangedListener(estimateTextWatcher);
+        mPeriodLength.addTextChangedListener(estimateTextWatcher);
+        mMaxThrow.addTextChangedListener(estimateTextWatcher);
+        mMinThrow.addTextChangedListener(estimateTextWatcher);
+        mNumberOfJugglers.addTextChangedListener(estimateTextWatcher);
+
+        // The estimate for the last used parameters is started right away. It
+        // walks the same code as the generation and warms it up, and the
+        // estimate is ready, when the user presses generate.
+        mHandler.removeCallbacks(mStartEstimate);
+        mStartEstimate.run();
+    }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mIsDestroyed = true;
+        mHandler.removeCallbacks(mStartEstimate);
+        mEstimateExecutor.shutdownNow();
     }
 
     @Override
@@ -196,6 +284,14 @@ public class MainActivity extends AppCompatActivity
         {
             showAboutDialog();
         }
+        else if (id == R.id.action_save_filter_preset)
+        {
+            showSaveFilterPresetDialog();
+        }
+        else if (id == R.id.action_load_filter_preset)
+        {
+            showLoadFilterPresetDialog();
+        }
 
         return super.onOptionsItemSelected(item);
     }
@@ -204,53 +300,112 @@ public class MainActivity extends AppCompatActivity
     protected void onStop() {
         super.onStop();
 
+        if (!mIsSettingsApplied)
+            return;
+
         try {
-            SharedPreferences sharedPref = getPreferences(Context.MODE_PRIVATE);
-            SharedPreferences.Editor editor = sharedPref.edit();
+            final Settings settings = new Settings();
+            settings.numberOfObjects = Integer.valueOf(mNumberOfObjects.getText().toString());
+            settings.periodLength = Integer.valueOf(mPeriodLength.getText().toString());
+            settings.maxThrow = Integer.valueOf(mMaxThrow.getText().toString());
+            settings.minThrow = Integer.valueOf(mMinThrow.getText().toString());
+            settings.numberOfJugglers = Integer.valueOf(mNumberOfJugglers.getText().toString());
+            settings.maxResults = Integer.valueOf(mMaxResults.getText().toString());
+            settings.timeout = Integer.valueOf(mTimeout.getText().toString());
+            settings.isRandomGenerationMode = mRandomGenerationModeCheckbox.isChecked();
+            settings.isZips = mZipsCheckbox.isChecked();
+            settings.isZaps = mZapsCheckbox.isChecked();
+            settings.isHolds = mHoldsCheckbox.isChecked();
+            settings.filterSpinnerPosition = mFilterTypeSpinner.getSelectedItemPosition();
+            settings.filterList = new LinkedList<Filter>(mFilterList);
+
+            sSettingsExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    saveSettings(settings);
+                }
+            });
+        }
+        catch (NumberFormatException e) {
+            Toast.makeText(this, getString(R.string.main_activity__invalid_input_value),
+                    Toast.LENGTH_SHORT).show();
+        }
+    }
 
-            int numberOfObjects = Integer.valueOf(mNumberOfObjects.getText().toString());
-            int periodLength = Integer.valueOf(mPeriodLength.getText().toString());
-            int maxThrow = Integer.valueOf(mMaxThrow.getText().toString());
-            int minThrow = Integer.valueOf(mMinThrow.getText().toString());
-            int numberOfJugglers = Integer.valueOf(mNumberOfJugglers.getText().toString());
-            int maxResults = Integer.valueOf(mMaxResults.getText().toString());
-            int timeout = Integer.valueOf(mTimeout.getText().toString());
-            boolean isRandomGenerationMode = mRandomGenerationModeCheckbox.isChecked();
-            boolean isZips = mZipsCheckbox.isChecked();
-            boolean isZaps = mZapsCheckbox.isChecked();
-            boolean isHolds = mHoldsCheckbox.isChecked();
-            int filterSpinnerPosition = mFilterTypeSpinner.getSelectedItemPosition();
-
-            editor.putInt(getString(R.string.main_activity__settings_number_of_objects), numberOfObjects);
-            editor.putInt(getString(R.string.main_activity__settings_period_length), periodLength);
-            editor.putInt(getString(R.string.main_activity__settings_max_throw), maxThrow);
-            editor.putInt(getString(R.string.main_activity__settings_min_throw), minThrow);
-            editor.putInt(getString(R.string.main_activity__settings_number_of_jugglers), numberOfJugglers);
-            editor.putInt(getString(R.string.main_activity__settings_max_results), maxResults);
-            editor.putInt(getString(R.string.main_activity__settings_timeout), timeout);
-            editor.putBoolean(getString(R.string.main_activity__settings_is_random_generation_mode), isRandomGenerationMode);
-            editor.putBoolean(getString(R.string.main_activity__settings_is_zips), isZips);
-            editor.putBoolean(getString(R.string.main_activity__settings_is_zaps), isZaps);
-            editor.putBoolean(getString(R.string.main_activity__settings_is_holds), isHolds);
-            editor.putInt(getString(R.string.main_activity__settings_filter_spinner_position), filterSpinnerPosition);
+    /**
+     * Reads the settings from the shared preferences. Called on the settings thread.
+     * */
+    private Settings loadSettings() {
+        Settings settings = new Settings();
+        SharedPreferences sharedPref = getPreferences(Context.MODE_PRIVATE);
+        settings.numberOfObjects  = sharedPref.getInt(getString(R.string.main_activity__settings_number_of_objects),  7);
+        settings.periodLength     = sharedPref.getInt(getString(R.string.main_activity__settings_period_length),      5);
+        settings.maxThrow         = sharedPref.getInt(getString(R.string.main_activity__settings_max_throw),         10);
+        settings.minThrow         = sharedPref.getInt(getString(R.string.main_activity__settings_min_throw),          2);
+        settings.numberOfJugglers = sharedPref.getInt(getString(R.string.main_activity__settings_number_of_jugglers), 2);
+        settings.maxResults       = sharedPref.getInt(getString(R.string.main_activity__settings_max_results),      100);
+        settings.timeout          = sharedPref.getInt(getString(R.string.main_activity__settings_timeout),            5);
+        settings.isZips           = sharedPref.getBoolean(getString(R.string.main_activity__settings_is_zips), true);
+        settings.isZaps           = sharedPref.getBoolean(getString(R.string.main_activity__settings_is_zaps), false);
+        settings.isHolds          = sharedPref.getBoolean(getString(R.string.main_activity__settings_is_holds), false);
+        settings.isRandomGenerationMode = sharedPref.getBoolean(
+                getString(R.string.main_activity__settings_is_random_generation_mode), false);
+        settings.filterSpinnerPosition = sharedPref.getInt(getString(R.string.main_activity__settings_filter_spinner_position), 0);
+        String serializedFilterList = sharedPref.getString(getString(R.string.main_activity__settings_filter_list), "");
 
+        if (!serializedFilterList.equals("")) {
             try {
-                ByteArrayOutputStream bo = new ByteArrayOutputStream();
-                ObjectOutputStream so = new ObjectOutputStream(bo);
-                so.writeObject(mFilterList);
-                so.close();
-                editor.putString(getString(R.string.main_activity__settings_filter_list), Base64.encodeToString(bo.toByteArray(), Base64.DEFAULT));
-            } catch (Exception e) {
-                Toast.makeText(this, getString(R.string.main_activity__serialization_error_toast),
-                        Toast.LENGTH_SHORT).show();
+                settings.filterList = FilterListFormat.decode(serializedFilterList);
+            } catch (IllegalArgumentException formatException) {
+                // Older versions stored the filter list java serialized
+                try {
+                    byte b[] = Base64.decode(serializedFilterList, Base64.DEFAULT);
+                    ByteArrayInputStream bi = new ByteArrayInputStream(b);
+                    ObjectInputStream si = new ObjectInputStream(bi);
+                    settings.filterList = (LinkedList<Filter>) si.readObject();
+                    si.close();
+                } catch (Exception e) {
+                    settings.isFilterListError = true;
+                }
             }
-
-            editor.commit();
         }
-        catch (NumberFormatException e) {
-            Toast.makeText(this, getString(R.string.main_activity__invalid_input_value),
-                    Toast.LENGTH_SHORT).show();
+        return settings;
+    }
+
+    /**
+     * Writes the settings to the shared preferences. Called on the settings thread.
+     * */
+    private void saveSettings(Settings settings) {
+        SharedPreferences sharedPref = getPreferences(Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = sharedPref.edit();
+
+        editor.putInt(getString(R.string.main_activity__settings_number_of_objects), settings.numberOfObjects);
+        editor.putInt(getString(R.string.main_activity__settings_period_length), settings.periodLength);
+        editor.putInt(getString(R.string.main_activity__settings_max_throw), settings.maxThrow);
+        editor.putInt(getString(R.string.main_activity__settings_min_throw), settings.minThrow);
+        editor.putInt(getString(R.string.main_activity__settings_number_of_jugglers), settings.numberOfJugglers);
+        editor.putInt(getString(R.string.main_activity__settings_max_results), settings.maxResults);
+        editor.putInt(getString(R.string.main_activity__settings_timeout), settings.timeout);
+        editor.putBoolean(getString(R.string.main_activity__settings_is_random_generation_mode), settings.isRandomGenerationMode);
+        editor.putBoolean(getString(R.string.main_activity__settings_is_zips), settings.isZips);
+        editor.putBoolean(getString(R.string.main_activity__settings_is_zaps), settings.isZaps);
+        editor.putBoolean(getString(R.string.main_activity__settings_is_holds), settings.isHolds);
+        editor.putInt(getString(R.string.main_activity__settings_filter_spinner_position), settings.filterSpinnerPosition);
+
+        try {
+            editor.putString(getString(R.string.main_activity__settings_filter_list),
+                    FilterListFormat.encode(settings.filterList));
+        } catch (IllegalArgumentException e) {
+            runOnUiThread(new Runnable() {
+                @Override
+                public void run() {
+                    Toast.makeText(getApplicationContext(), getString(R.string.main_activity__serialization_error_toast),
+                            Toast.LENGTH_SHORT).show();
+                }
+            });
         }
+
+        editor.apply();
     }
 
 
@@ -285,6 +440,7 @@ public class MainActivity extends AppCompatActivity
         if (!mFilterList.contains(filter))
             mFilterList.add(filter);
         mFilterListAdapter.notifyDataSetChanged();
+        scheduleEstimate();
     }
 
     public void onRemoveSiteswapFilter(Filter filter)
@@ -293,6 +449,7 @@ public class MainActivity extends AppCompatActivity
         while (mFilterList.remove(filter))
             ;
         mFilterListAdapter.notifyDataSetChanged();
+        scheduleEstimate();
     }
 
     public void onChangeSiteswapFilter(Filter oldFilter, Filter newFilter)
@@ -302,8 +459,6 @@ public class MainActivity extends AppCompatActivity
     }
 
     public void generateSiteswaps(View view) {
-        Intent intent = new Intent(this, ShowSiteswaps.class);
-
         try {
             int numberOfObjects = Integer.valueOf(mNumberOfObjects.getText().toString());
             int periodLength = Integer.valueOf(mPeriodLength.getText().toString());
@@ -321,9 +476,14 @@ public class MainActivity extends AppCompatActivity
             siteswapGenerator.setTimeoutSeconds(timeout);
             siteswapGenerator.setRandomGeneration(isRandomGenerationMode);
 
-            intent.putExtra(getString(R.string.intent__siteswap_generator), siteswapGenerator);
-            startActivity(intent);
-
+            // In random mode, the generation always runs until the timeout
+            if (!isRandomGenerationMode && mEstimate != null &&
+                    mEstimateGenerator.hasSameSearchSpace(siteswapGenerator) &&
+                    !mEstimate.isFeasible(maxResults, timeout)) {
+                showLongGenerationDialog(siteswapGenerator, mEstimate);
+                return;
+            }
+            startGeneration(siteswapGenerator);
         }
         catch (NumberFormatException e) {
             Toast.makeText(this, getString(R.string.main_activity__invalid_input_value),
@@ -331,6 +491,48 @@ public class MainActivity extends AppCompatActivity
         }
     }
 
+    private void startGeneration(SiteswapGenerator siteswapGenerator) {
+        Intent intent = new Intent(this, ShowSiteswaps.class);
+        intent.putExtra(getString(R.string.intent__siteswap_generator), siteswapGenerator);
+        startActivity(intent);
+    }
+
+    private void showLongGenerationDialog(final SiteswapGenerator siteswapGenerator,
+                                          SearchTreeEstimate estimate) {
+        int maxResults = siteswapGenerator.getMaxResults();
+        final int suggestedTimeout = estimate.getSuggestedTimeoutSeconds(maxResults);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(getString(R.string.main_activity__long_generation_title));
+        builder.setMessage(String.format(getString(R.string.main_activity__long_generation_message),
+                formatDuration(estimate.getSeconds(maxResults)), siteswapGenerator.getTimeoutSeconds()));
+        builder.setPositiveButton(getString(R.string.main_activity__long_generation_generate),
+                new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                startGeneration(siteswapGenerator);
+            }
+        });
+        if (suggestedTimeout <= MAX_SUGGESTED_TIMEOUT_SECONDS) {
+            builder.setNeutralButton(String.format(getString(
+                    R.string.main_activity__long_generation_use_timeout), suggestedTimeout),
+                    new DialogInterface.OnClickListener() {
+                @Override
+                public void onClick(DialogInterface dialog, int which) {
+                    mTimeout.setText(String.valueOf(suggestedTimeout));
+                    siteswapGenerator.setTimeoutSeconds(suggestedTimeout);
+                    startGeneration(siteswapGenerator);
+                }
+            });
+        }
+        builder.setNegativeButton(getString(R.string.back), new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+            }
+        });
+        builder.create().show();
+    }
+
     public void onCheckboxClicked(View view) {
 
         try {
@@ -358,12 +560,103 @@ public class MainActivity extends AppCompatActivity
                     break;
             }
             mFilterListAdapter.notifyDataSetChanged();
+            scheduleEstimate();
         }
         catch (NumberFormatException e) {
         }
 
     }
 
+    /**
+     * Restarts the countdown for a new estimate. Only the last of several fast
+     * changes of the parameters leads to an estimate.
+     * */
+    private void scheduleEstimate() {
+        if (mHandler == null)
+            return;
+        mHandler.removeCallbacks(mStartEstimate);
+        mHandler.postDelayed(mStartEstimate, ESTIMATE_DELAY_MILLIS);
+    }
+
+    private final Runnable mStartEstimate = new Runnable() {
+        @Override
+        public void run() {
+            if (mIsDestroyed || mEstimateExecutor.isShutdown())
+                return;
+            // Results of an estimate, that is still running, are not needed anymore
+            if (mEstimateFuture != null)
+                mEstimateFuture.cancel(true);
+            final int requestId = ++mEstimateRequestId;
+
+            final SiteswapGenerator generator;
+            try {
+                int numberOfObjects = Integer.valueOf(mNumberOfObjects.getText().toString());
+                int periodLength = Integer.valueOf(mPeriodLength.getText().toString());
+                int maxThrow = Integer.valueOf(mMaxThrow.getText().toString());
+                int minThrow = Integer.valueOf(mMinThrow.getText().toString());
+                int numberOfJugglers = Integer.valueOf(mNumberOfJugglers.getText().toString());
+                if (periodLength < 1 || maxThrow < minThrow || numberOfJugglers < 1 ||
+                        numberOfObjects > maxThrow || numberOfObjects < minThrow) {
+                    mEstimateTextView.setText("");
+                    return;
+                }
+                // The filter list is copied, because it is changed on the UI thread
+                generator = new SiteswapGenerator(periodLength, maxThrow, minThrow,
+                        numberOfObjects, numberOfJugglers, new LinkedList<Filter>(mFilterList));
+            }
+            catch (NumberFormatException e) {
+                mEstimateTextView.setText("");
+                return;
+            }
+
+            mEstimateTextView.setText(getString(R.string.main_activity__estimating));
+            mEstimateFuture = mEstimateExecutor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    final SearchTreeEstimate estimate = generator.estimateSearchTree(
+                            ESTIMATE_PROBES, new Random());
+                    if (Thread.currentThread().isInterrupted())
+                        return;
+                    runOnUiThread(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (requestId == mEstimateRequestId) {
+                                mEstimate = estimate;
+                                mEstimateGenerator = generator;
+                                showEstimate(estimate);
+                            }
+                        }
+                    });
+                }
+            });
+        }
+    };
+
+    private void showEstimate(SearchTreeEstimate estimate) {
+        String results;
+        if (estimate.getResults() < 1e6)
+            results = String.format(Locale.getDefault(), "%.0f", estimate.getResults());
+        else
+            results = String.format(Locale.getDefault(), "%.1e", estimate.getResults());
+
+        mEstimateTextView.setText(String.format(getString(R.string.main_activity__estimate),
+                results, formatDuration(estimate.getSeconds())));
+    }
+
+    private static String formatDuration(double seconds) {
+        if (seconds < 1)
+            return "< 1 s";
+        if (seconds < 60)
+            return String.format(Locale.getDefault(), "%.0f s", seconds);
+        if (seconds < 3600)
+            return String.format(Locale.getDefault(), "%.0f min", seconds / 60);
+        if (seconds < 86400)
+            return String.format(Locale.getDefault(), "%.1f h", seconds / 3600);
+        if (seconds < 86400 * 365)
+            return String.format(Locale.getDefault(), "%.0f d", seconds / 86400);
+        return String.format(Locale.getDefault(), "%.1e y", seconds / (86400 * 365));
+    }
+
     private void updateAutoFilters() {
         try {
             int numberOfJugglers = Integer.valueOf(mNumberOfJugglers.getText().toString());
@@ -379,6 +672,66 @@ public class MainActivity extends AppCompatActivity
     }
 
 
+    private void showSaveFilterPresetDialog()
+    {
+        final EditText nameEditText = new EditText(this);
+        nameEditText.setHint(getString(R.string.filter_presets__name_hint));
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(getString(R.string.main_activity__option_save_filter_preset));
+        builder.setView(nameEditText);
+        builder.setPositiveButton(getString(R.string.filter_presets__save), new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                String name = nameEditText.getText().toString().trim();
+                if (name.isEmpty())
+                    return;
+                new FilterPresets(getApplicationContext()).save(name, mFilterList);
+            }
+        });
+        builder.setNegativeButton(getString(R.string.back), new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+            }
+        });
+        builder.create().show();
+    }
+
+    private void showLoadFilterPresetDialog()
+    {
+        final FilterPresets presets = new FilterPresets(getApplicationContext());
+        final String[] names = presets.getNames();
+        if (names.length == 0) {
+            Toast.makeText(this, getString(R.string.filter_presets__no_presets_toast),
+                    Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(getString(R.string.main_activity__option_load_filter_preset));
+        builder.setItems(names, new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                LinkedList<Filter> filterList = presets.load(names[which]);
+                if (filterList == null) {
+                    Toast.makeText(getApplicationContext(), getString(R.string.filter_presets__load_error_toast),
+                            Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                mFilterList.clear();
+                mFilterList.addAll(filterList);
+                updateAutoFilters();
+                scheduleEstimate();
+            }
+        });
+        builder.setNegativeButton(getString(R.string.back), new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+            }
+        });
+        builder.create().show();
+    }
+
     private void showAboutDialog()
     {
 
@@ -1,23 +1,26 @@
 package namlit.siteswapgenerator;
 
 import android.content.Intent;
+import android.os.Handler;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.view.View;
 import android.widget.AdapterView;
-import android.widget.ArrayAdapter;
 import android.widget.ListView;
 
-import java.util.LinkedList;
-
 import siteswaplib.SiteswapGenerator;
 import siteswaplib.Siteswap;
 
-public class ShowSiteswaps extends AppCompatActivity {
+public class ShowSiteswaps extends AppCompatActivity implements GenerationJob.Listener {
+
+    // Results found during generation are published to the list at most this often
+    private static final int UPDATE_INTERVAL_MILLIS = 100;
 
-    private SiteswapGenerator mGenerator = null;
-    private LinkedList<Siteswap> mSiteswapList = null;
-    private boolean mNoTimeout = true;
+    private GenerationJob mJob = null;
+    private SiteswapListAdapter mAdapter;
+    private Handler mHandler;
+    private final Object mUpdateLock = new Object();
+    private boolean mIsUpdateScheduled = false;
 
     ListView mSiteswapListView;
 
@@ -27,53 +30,62 @@ public class ShowSiteswaps extends AppCompatActivity {
         setContentView(R.layout.activity_show_siteswaps);
 
         mSiteswapListView = (ListView) findViewById(R.id.siteswap_list);
+        mHandler = new Handler();
 
+        GenerationJobManager jobManager = GenerationJobManager.getInstance();
         if (savedInstanceState != null) {
-
-            mNoTimeout = savedInstanceState.getBoolean(getString(R.string.show_siteswaps__saved_is_no_timeout));
-            mGenerator = (SiteswapGenerator) savedInstanceState.getSerializable(
-                    getString(R.string.show_siteswaps__saved_siteswap_generator));
-            mSiteswapList = mGenerator.getSiteswaps();
-
+            // The job is still owned by the job manager, if the process was not killed
+            mJob = jobManager.getJob(savedInstanceState.getInt(
+                    getString(R.string.show_siteswaps__saved_job_id)));
         }
-        else {
-
-            Intent intent = getIntent();
-
-//            int numberOfObjects  = intent.getIntExtra(getString(R.string.intent__siteswap_number_of_objects),   0);
-//            int periodLength     = intent.getIntExtra(getString(R.string.intent__siteswap_period_length),       0);
-//            int maxThrow         = intent.getIntExtra(getString(R.string.intent__siteswap_max_throw),           0);
-//            int minThrow         = intent.getIntExtra(getString(R.string.intent__siteswap_min_throw),           0);
-//            int numberOfJugglers = intent.getIntExtra(getString(R.string.intent__siteswap_number_of_jugglers),  0);
-//            int maxResults       = intent.getIntExtra(getString(R.string.intent__siteswap_max_results),         0);
-//            int timeout          = intent.getIntExtra(getString(R.string.intent__siteswap_calculation_timeout), 0);
-//            ArrayList<Filter> filterList = (ArrayList<Filter>) intent.getSerializableExtra(getString(R.string.intent__siteswap_filter_list));
-            //LinkedList<Filter> filterList = new LinkedList<Filter>();
-
-            mGenerator = (SiteswapGenerator) intent.getSerializableExtra(getString(R.string.intent__siteswap_generator));
-            //mGenerator.setFilterList(filterList);
+        if (mJob == null) {
+            SiteswapGenerator generator = (SiteswapGenerator) getIntent().getSerializableExtra(
+                    getString(R.string.intent__siteswap_generator));
+            mJob = jobManager.startJob(generator);
         }
 
-        if (mGenerator.isCalculationComplete()) {
-            loadSiteswaps();
-        }
-        else {
-            generateSiteswaps();
-        }
+        setupListView();
+        mJob.attach(this);
+        if (mJob.isFinished())
+            onGenerationFinished(mJob);
+        else
+            updateTitle();
     }
 
     @Override
     public void onSaveInstanceState(Bundle out) {
-        out.putBoolean(getString(R.string.show_siteswaps__saved_is_no_timeout), mNoTimeout);
-        out.putSerializable(getString(R.string.show_siteswaps__saved_siteswap_generator), mGenerator);
+        out.putInt(getString(R.string.show_siteswaps__saved_job_id), mJob.getId());
         super.onSaveInstanceState(out);
     }
 
-    private void loadSiteswaps() {
-        mSiteswapList = mGenerator.getSiteswaps();
-        ArrayAdapter adapter = new ArrayAdapter<Siteswap>(
-                ShowSiteswaps.this, android.R.layout.simple_list_item_1, mSiteswapList);
-        mSiteswapListView.setAdapter(adapter);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mJob.detach(this);
+        mHandler.removeCallbacks(mPublishSiteswaps);
+        // Nobody will show the results of an unfinished job anymore
+        if (isFinishing() && !mJob.isFinished())
+            GenerationJobManager.getInstance().cancelJob(mJob.getId());
+    }
+
+    @Override
+    public void onGenerationProgress(GenerationJob job) {
+        synchronized (mUpdateLock) {
+            if (!mIsUpdateScheduled) {
+                mIsUpdateScheduled = true;
+                mHandler.postDelayed(mPublishSiteswaps, UPDATE_INTERVAL_MILLIS);
+            }
+        }
+    }
+
+    @Override
+    public void onGenerationFinished(GenerationJob job) {
+        mHandler.post(mPublishSiteswaps);
+    }
+
+    private void setupListView() {
+        mAdapter = new SiteswapListAdapter(ShowSiteswaps.this, mJob.getSiteswaps());
+        mSiteswapListView.setAdapter(mAdapter);
         mSiteswapListView.setOnItemClickListener(new AdapterView.OnItemClickListener() {
             @Override
             public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
@@ -84,29 +96,27 @@ public class ShowSiteswaps extends AppCompatActivity {
                 startActivity(intent);
             }
         });
+    }
 
-
-        if (mNoTimeout || mSiteswapList.size() == mGenerator.getMaxResults())
-            setTitle(String.format(getString(R.string.show_siteswaps__title), mSiteswapList.size()));
+    private void updateTitle() {
+        int numberOfResults = mAdapter.getCount();
+        if (!mJob.isFinished())
+            setTitle(String.format(getString(R.string.show_siteswaps__title_loading_count), numberOfResults));
+        else if (mJob.isNoTimeout() || numberOfResults == mJob.getGenerator().getMaxResults())
+            setTitle(String.format(getString(R.string.show_siteswaps__title), numberOfResults));
         else
-            setTitle(String.format(getString(R.string.show_siteswaps__title_timeout), mSiteswapList.size()));
+            setTitle(String.format(getString(R.string.show_siteswaps__title_timeout), numberOfResults));
     }
 
-    private void generateSiteswaps() {
-
-        setTitle(getString(R.string.show_siteswaps__title_loading));
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                mNoTimeout = mGenerator.generateSiteswaps();
-                runOnUiThread(new Runnable() {
-                    @Override
-                    public void run() {
-                        loadSiteswaps();
-                    }
-                });
+    private final Runnable mPublishSiteswaps = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (mUpdateLock) {
+                mIsUpdateScheduled = false;
             }
-        }).start();
-
-    }
+            // One notifyDataSetChanged for all siteswaps found since the last update
+            mAdapter.setCount(mJob.getNumberOfResults());
+            updateTitle();
+        }
+    };
 }
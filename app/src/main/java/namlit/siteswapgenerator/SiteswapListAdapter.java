@@ -0,0 +1,98 @@
+package namlit.siteswapgenerator;
+
+import android.content.Context;
+import android.util.LruCache;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.TextView;
+
+import java.util.Iterator;
+
+import siteswaplib.CompressedSiteswapList;
+import siteswaplib.Siteswap;
+
+/**
+ * List adapter, that reads siteswaps page wise from a CompressedSiteswapList. Only
+ * a few decoded pages and the strings of recently shown rows are cached, so
+ * scrolling does not depend on the number of siteswaps. Row views are recycled.
+ *
+ * The list may be appended by another thread. Pages are read while holding the
+ * lock of the list, and only the first getCount() siteswaps are shown, until
+ * setCount() is called on the UI thread.
+ */
+public class SiteswapListAdapter extends BaseAdapter {
+
+    private static final int PAGE_SIZE = 64;
+    private static final int CACHED_PAGES = 8;
+    private static final int CACHED_ROW_STRINGS = 256;
+
+    private CompressedSiteswapList mSiteswaps;
+    private int mCount;
+    private LayoutInflater mInflater;
+    private LruCache<Integer, Siteswap[]> mPages = new LruCache<Integer, Siteswap[]>(CACHED_PAGES);
+    private LruCache<Integer, String> mRowStrings = new LruCache<Integer, String>(CACHED_ROW_STRINGS);
+
+    public SiteswapListAdapter(Context context, CompressedSiteswapList siteswaps) {
+        mInflater = LayoutInflater.from(context);
+        mSiteswaps = siteswaps;
+        synchronized (mSiteswaps) {
+            mCount = mSiteswaps.size();
+        }
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    public void setCount(int count) {
+        mCount = count;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public Siteswap getItem(int position) {
+        int pageIndex = position / PAGE_SIZE;
+        Siteswap[] page = mPages.get(pageIndex);
+        // The last page might have been cached before siteswaps were appended
+        if (page == null || position - pageIndex * PAGE_SIZE >= page.length) {
+            page = loadPage(pageIndex);
+            mPages.put(pageIndex, page);
+        }
+        return page[position - pageIndex * PAGE_SIZE];
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        TextView view = (TextView) convertView;
+        if (view == null)
+            view = (TextView) mInflater.inflate(android.R.layout.simple_list_item_1, parent, false);
+
+        String rowString = mRowStrings.get(position);
+        if (rowString == null) {
+            rowString = getItem(position).toString();
+            mRowStrings.put(position, rowString);
+        }
+        view.setText(rowString);
+        return view;
+    }
+
+    private Siteswap[] loadPage(int pageIndex) {
+        int start = pageIndex * PAGE_SIZE;
+        int length = Math.min(PAGE_SIZE, mCount - start);
+        Siteswap[] page = new Siteswap[length];
+        synchronized (mSiteswaps) {
+            Iterator<Siteswap> it = mSiteswaps.iterator(start);
+            for (int i = 0; i < length; ++i)
+                page[i] = it.next();
+        }
+        return page;
+    }
+}
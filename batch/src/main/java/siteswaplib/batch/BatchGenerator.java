@@ -0,0 +1,259 @@
+package siteswaplib.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import siteswaplib.SiteswapExporter;
+
+/**
+ * Runs all jobs of a job file (see JobFile) on a fixed number of worker threads
+ * and writes the results of every job into its own compressed file.
+ *
+ * The search trees of all jobs are estimated first. The jobs are then started
+ * in the order of decreasing estimated size, so that a long job does not start
+ * last and keep a single worker busy, while the others are idle.
+ *
+ * A line is printed for every finished job and the throughput statistics at the
+ * end. The exit code is 1, if a job failed, and 2 for invalid arguments.
+ */
+public class BatchGenerator {
+
+	private static final String USAGE =
+			"Usage: batch [options] jobfile\n" +
+			"  -threads n       number of worker threads (default: number of processors)\n" +
+			"  -output dir      directory of the result files (default: .)\n" +
+			"  -format f        text, csv or json (default: text)\n" +
+			"  -max-results n   maximum number of results per job (default: unlimited)\n" +
+			"  -timeout s       timeout per job in seconds (default: unlimited)\n" +
+			"  -probes n        probes of the search tree estimates (default: 1000)\n";
+
+	private int mNumberOfThreads = Runtime.getRuntime().availableProcessors();
+	private File mOutputDirectory = new File(".");
+	private SiteswapExporter.Format mFormat = SiteswapExporter.Format.TEXT;
+	private int mMaxResults = Integer.MAX_VALUE;
+	private int mTimeoutSeconds = Integer.MAX_VALUE / 1000;
+	private int mNumberOfProbes = 1000;
+
+	public static void main(String[] args) {
+		BatchGenerator batchGenerator = new BatchGenerator();
+		List<BatchJob> jobs;
+		try {
+			String jobFile = batchGenerator.parseArguments(args);
+			jobs = readJobFile(new File(jobFile));
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.print(USAGE);
+			System.exit(2);
+			return;
+		} catch (IOException e) {
+			System.err.println("Could not read job file: " + e.getMessage());
+			System.exit(2);
+			return;
+		}
+
+		int numberOfFailedJobs = batchGenerator.run(jobs);
+		System.exit(numberOfFailedJobs == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Returns the job file argument.
+	 * */
+	private String parseArguments(String[] args) {
+		String jobFile = null;
+		for (int i = 0; i < args.length; ++i) {
+			String arg = args[i];
+			if (!arg.startsWith("-")) {
+				if (jobFile != null)
+					throw new IllegalArgumentException("Only one job file is supported");
+				jobFile = arg;
+				continue;
+			}
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value of " + arg);
+			String value = args[++i];
+			if (arg.equals("-threads"))
+				mNumberOfThreads = parsePositive(arg, value);
+			else if (arg.equals("-output"))
+				mOutputDirectory = new File(value);
+			else if (arg.equals("-format"))
+				mFormat = parseFormat(value);
+			else if (arg.equals("-max-results"))
+				mMaxResults = parsePositive(arg, value);
+			else if (arg.equals("-timeout"))
+				mTimeoutSeconds = Math.min(parsePositive(arg, value), Integer.MAX_VALUE / 1000);
+			else if (arg.equals("-probes"))
+				mNumberOfProbes = parsePositive(arg, value);
+			else
+				throw new IllegalArgumentException("Unknown option " + arg);
+		}
+		if (jobFile == null)
+			throw new IllegalArgumentException("Missing job file");
+		return jobFile;
+	}
+
+	private static int parsePositive(String arg, String value) {
+		try {
+			int number = Integer.parseInt(value);
+			if (number > 0)
+				return number;
+		} catch (NumberFormatException e) {
+			// handled below
+		}
+		throw new IllegalArgumentException("Invalid value of " + arg + ": " + value);
+	}
+
+	private static SiteswapExporter.Format parseFormat(String value) {
+		for (SiteswapExporter.Format format : SiteswapExporter.Format.values()) {
+			if (format.name().equalsIgnoreCase(value))
+				return format;
+		}
+		throw new IllegalArgumentException("Unknown format " + value);
+	}
+
+	private static List<BatchJob> readJobFile(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(
+				new FileInputStream(file), "UTF-8"));
+		try {
+			return JobFile.read(reader);
+		} finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Returns the number of failed jobs.
+	 * */
+	public int run(List<BatchJob> jobs) {
+		if (!mOutputDirectory.isDirectory() && !mOutputDirectory.mkdirs()) {
+			System.err.println("Could not create output directory " + mOutputDirectory);
+			return jobs.size();
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(mNumberOfThreads);
+		try {
+			long startNanos = System.nanoTime();
+			estimateJobs(executor, jobs);
+			long estimateNanos = System.nanoTime() - startNanos;
+			System.out.printf(Locale.US, "Estimated %d jobs in %.1f s, running on %d threads%n",
+					jobs.size(), estimateNanos / 1e9, mNumberOfThreads);
+
+			List<BatchJob> schedule = new ArrayList<BatchJob>(jobs);
+			Collections.sort(schedule, new Comparator<BatchJob>() {
+				@Override
+				public int compare(BatchJob lhs, BatchJob rhs) {
+					return Double.compare(rhs.getEstimatedNodes(mMaxResults),
+							lhs.getEstimatedNodes(mMaxResults));
+				}
+			});
+
+			startNanos = System.nanoTime();
+			int numberOfFailedJobs = runJobs(executor, schedule);
+			printStatistics(jobs, System.nanoTime() - startNanos);
+			return numberOfFailedJobs;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void estimateJobs(ExecutorService executor, List<BatchJob> jobs) {
+		List<Callable<Object>> estimates = new ArrayList<Callable<Object>>();
+		for (final BatchJob job : jobs) {
+			estimates.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					return job.estimate(mNumberOfProbes);
+				}
+			});
+		}
+		try {
+			executor.invokeAll(estimates);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * The jobs are submitted in schedule order. The queue of the pool is FIFO, so
+	 * the workers take them in this order. Returns the number of failed jobs.
+	 * */
+	private int runJobs(ExecutorService executor, List<BatchJob> schedule) {
+		CompletionService<BatchJob> completionService = new ExecutorCompletionService<BatchJob>(executor);
+		List<Future<BatchJob>> futures = new ArrayList<Future<BatchJob>>();
+		for (final BatchJob job : schedule) {
+			futures.add(completionService.submit(new Callable<BatchJob>() {
+				@Override
+				public BatchJob call() throws IOException {
+					try {
+						job.run(mOutputDirectory, mFormat, mMaxResults, mTimeoutSeconds);
+					} catch (IOException e) {
+						throw new IOException(job.getName() + ": " + e.getMessage(), e);
+					}
+					return job;
+				}
+			}));
+		}
+
+		int numberOfFailedJobs = 0;
+		for (int i = 0; i < futures.size(); ++i) {
+			try {
+				BatchJob job = completionService.take().get();
+				System.out.printf(Locale.US, "%4d/%d %s: %d results, %d nodes, %.3f s, %s%n",
+						i + 1, futures.size(), job.getName(), job.getNumberOfResults(),
+						job.getNumberOfNodes(), job.getNanos() / 1e9,
+						job.getStatus().name().toLowerCase(Locale.US));
+			} catch (ExecutionException e) {
+				numberOfFailedJobs++;
+				System.err.printf(Locale.US, "%4d/%d failed: %s%n", i + 1, futures.size(),
+						e.getCause().getMessage());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return futures.size() - i + numberOfFailedJobs;
+			}
+		}
+		return numberOfFailedJobs;
+	}
+
+	private void printStatistics(List<BatchJob> jobs, long wallNanos) {
+		long results = 0;
+		long nodes = 0;
+		long jobNanos = 0;
+		long outputBytes = 0;
+		int numberOfIncompleteJobs = 0;
+		double estimatedNodes = 0;
+		for (BatchJob job : jobs) {
+			if (job.getStatus() == null)
+				continue; // failed
+			results += job.getNumberOfResults();
+			nodes += job.getNumberOfNodes();
+			jobNanos += job.getNanos();
+			outputBytes += job.getOutputFile().length();
+			estimatedNodes += job.getEstimatedNodes(mMaxResults);
+			if (job.getStatus() != BatchJob.Status.COMPLETE)
+				numberOfIncompleteJobs++;
+		}
+		double wallSeconds = wallNanos / 1e9;
+		System.out.printf(Locale.US, "%nJobs:        %d (%d incomplete)%n", jobs.size(), numberOfIncompleteJobs);
+		System.out.printf(Locale.US, "Results:     %d (%.0f/s)%n", results, results / wallSeconds);
+		System.out.printf(Locale.US, "Nodes:       %d (%.0f/s, estimated %.0f)%n", nodes,
+				nodes / wallSeconds, estimatedNodes);
+		System.out.printf(Locale.US, "Output:      %.1f kB compressed%n", outputBytes / 1e3);
+		System.out.printf(Locale.US, "Wall time:   %.3f s%n", wallSeconds);
+		System.out.printf(Locale.US, "Utilization: %.0f%% of %d threads%n",
+				100 * jobNanos / 1e9 / wallSeconds / mNumberOfThreads, mNumberOfThreads);
+	}
+}
@@ -0,0 +1,163 @@
+package siteswaplib.batch;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.util.LinkedList;
+import java.util.Locale;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import siteswaplib.Filter;
+import siteswaplib.FilterListFormat;
+import siteswaplib.GenerationCheckpoint;
+import siteswaplib.SearchTreeEstimate;
+import siteswaplib.SiteswapExporter;
+import siteswaplib.SiteswapGenerator;
+
+/**
+ * One parameter set of a batch run. The results are streamed into a gzip
+ * compressed file of the output directory, named after the job, so the memory
+ * usage does not depend on the number of results.
+ */
+public class BatchJob {
+
+	public enum Status {COMPLETE, MAX_RESULTS, TIMEOUT}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final int mIndex;
+	private final int mPeriodLength;
+	private final int mMaxThrow;
+	private final int mMinThrow;
+	private final int mNumberOfObjects;
+	private final int mNumberOfJugglers;
+	private final LinkedList<Filter> mFilterList;
+
+	private SearchTreeEstimate mEstimate = null;
+	private File mOutputFile = null;
+	private Status mStatus = null;
+	private int mNumberOfResults = 0;
+	private long mNumberOfNodes = 0;
+	private long mNanos = 0;
+
+	public BatchJob(int index, int periodLength, int maxThrow, int minThrow, int numberOfObjects,
+					int numberOfJugglers, LinkedList<Filter> filterList) {
+		mIndex = index;
+		mPeriodLength = periodLength;
+		mMaxThrow = maxThrow;
+		mMinThrow = minThrow;
+		mNumberOfObjects = numberOfObjects;
+		mNumberOfJugglers = numberOfJugglers;
+		mFilterList = filterList;
+	}
+
+	public SiteswapGenerator createGenerator() {
+		return new SiteswapGenerator(mPeriodLength, mMaxThrow, mMinThrow, mNumberOfObjects,
+				mNumberOfJugglers, new LinkedList<Filter>(mFilterList));
+	}
+
+	/**
+	 * The random generator is seeded with the job index, so the schedule of a job
+	 * file is the same for every run.
+	 * */
+	public SearchTreeEstimate estimate(int numberOfProbes) {
+		mEstimate = createGenerator().estimateSearchTree(numberOfProbes, new Random(mIndex));
+		return mEstimate;
+	}
+
+	/**
+	 * Estimated number of nodes until maxResults siteswaps are found. Unlike the
+	 * estimated time, it does not depend on the JIT state during the estimate.
+	 * */
+	public double getEstimatedNodes(int maxResults) {
+		if (mEstimate == null)
+			return 0;
+		if (mEstimate.getResults() <= maxResults)
+			return mEstimate.getNodes();
+		return mEstimate.getNodes() * maxResults / mEstimate.getResults();
+	}
+
+	public void run(File outputDirectory, SiteswapExporter.Format format, int maxResults,
+					int timeoutSeconds) throws IOException {
+		SiteswapGenerator generator = createGenerator();
+		generator.setMaxResults(maxResults);
+		generator.setTimeoutSeconds(timeoutSeconds);
+		generator.setStoringResults(false);
+
+		mOutputFile = new File(outputDirectory, getName() + "." +
+				format.name().toLowerCase(Locale.US) + ".gz");
+		OutputStream stream = new GZIPOutputStream(new FileOutputStream(mOutputFile), BUFFER_SIZE);
+		try {
+			SiteswapExporter exporter = new SiteswapExporter(Channels.newChannel(stream), format);
+			generator.setSiteswapSink(exporter);
+			long startNanos = System.nanoTime();
+			boolean isComplete = generator.generateSiteswaps();
+			mNanos = System.nanoTime() - startNanos;
+			exporter.close();
+
+			GenerationCheckpoint checkpoint = generator.getCheckpoint();
+			if (isComplete)
+				mStatus = Status.COMPLETE;
+			else if (checkpoint != null && !checkpoint.isPrefixExplored())
+				mStatus = Status.TIMEOUT;
+			else
+				mStatus = Status.MAX_RESULTS;
+			mNumberOfResults = exporter.getNumberOfRows();
+			mNumberOfNodes = generator.getBacktrackingCount();
+		} finally {
+			stream.close();
+		}
+	}
+
+	/**
+	 * e.g. job0007_p5_max10_min2_o7_j2
+	 * */
+	public String getName() {
+		return String.format(Locale.US, "job%04d_p%d_max%d_min%d_o%d_j%d", mIndex, mPeriodLength,
+				mMaxThrow, mMinThrow, mNumberOfObjects, mNumberOfJugglers);
+	}
+
+	/**
+	 * Line of a job file (see JobFile), that describes only this job.
+	 * */
+	public String toLine() {
+		return String.format(Locale.US, "%d %d %d %d %d %s", mPeriodLength, mMaxThrow, mMinThrow,
+				mNumberOfObjects, mNumberOfJugglers, FilterListFormat.encode(mFilterList));
+	}
+
+	@Override
+	public String toString() {
+		return getName() + " " + FilterListFormat.encode(mFilterList);
+	}
+
+	public int getIndex() {
+		return mIndex;
+	}
+
+	public SearchTreeEstimate getEstimate() {
+		return mEstimate;
+	}
+
+	public File getOutputFile() {
+		return mOutputFile;
+	}
+
+	public Status getStatus() {
+		return mStatus;
+	}
+
+	public int getNumberOfResults() {
+		return mNumberOfResults;
+	}
+
+	public long getNumberOfNodes() {
+		return mNumberOfNodes;
+	}
+
+	public long getNanos() {
+		return mNanos;
+	}
+}
@@ -0,0 +1,116 @@
+package siteswaplib.batch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+import siteswaplib.Filter;
+import siteswaplib.FilterListFormat;
+
+/**
+ * Reads the jobs of a batch run. Each line describes a set of jobs:
+ *
+ *   period maxThrow minThrow objects jugglers [filters]
+ *
+ * Every number can also be a range like 5-8. A line is expanded to all
+ * combinations of its ranges, combinations with less objects than minThrow or
+ * more objects than maxThrow are skipped. The filters are a token of
+ * FilterListFormat, "default" for the default filters of the number of jugglers
+ * (also used, if the filters are omitted) or "none". Empty lines and lines
+ * starting with '#' are ignored.
+ *
+ * Example: all 5 to 7 object siteswaps of period 3 to 8 for two jugglers
+ *
+ *   3-8 10 2 5-7 2 default
+ */
+public class JobFile {
+
+	public static final String DEFAULT_FILTERS = "default";
+	public static final String NO_FILTERS = "none";
+
+	/**
+	 * Throws an IllegalArgumentException with the line number, if a line is invalid.
+	 * */
+	public static List<BatchJob> read(BufferedReader reader) throws IOException {
+		List<BatchJob> jobs = new ArrayList<BatchJob>();
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+				continue;
+			try {
+				addJobs(line, jobs);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+			}
+		}
+		return jobs;
+	}
+
+	private static void addJobs(String line, List<BatchJob> jobs) {
+		String[] fields = line.split("\\s+");
+		if (fields.length != 5 && fields.length != 6)
+			throw new IllegalArgumentException("Expected 5 or 6 fields, but found " + fields.length);
+		int[] periodLength = parseRange(fields[0]);
+		int[] maxThrow = parseRange(fields[1]);
+		int[] minThrow = parseRange(fields[2]);
+		int[] numberOfObjects = parseRange(fields[3]);
+		int[] numberOfJugglers = parseRange(fields[4]);
+		String filters = (fields.length == 6) ? fields[5] : DEFAULT_FILTERS;
+		if (!filters.equals(DEFAULT_FILTERS) && !filters.equals(NO_FILTERS))
+			FilterListFormat.decode(filters); // Fail early on invalid tokens
+		if (numberOfJugglers[0] < 1)
+			throw new IllegalArgumentException("At least one juggler is required");
+
+		for (int period = periodLength[0]; period <= periodLength[1]; ++period) {
+			for (int max = maxThrow[0]; max <= maxThrow[1]; ++max) {
+				for (int min = minThrow[0]; min <= minThrow[1]; ++min) {
+					for (int objects = numberOfObjects[0]; objects <= numberOfObjects[1]; ++objects) {
+						if (objects < min || objects > max)
+							continue;
+						for (int jugglers = numberOfJugglers[0]; jugglers <= numberOfJugglers[1]; ++jugglers) {
+							jobs.add(new BatchJob(jobs.size(), period, max, min, objects, jugglers,
+									createFilterList(filters, jugglers, min)));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static LinkedList<Filter> createFilterList(String filters, int numberOfJugglers,
+													   int minThrow) {
+		if (filters.equals(NO_FILTERS))
+			return new LinkedList<Filter>();
+		if (filters.equals(DEFAULT_FILTERS)) {
+			LinkedList<Filter> filterList = new LinkedList<Filter>();
+			Filter.addDefaultFilters(filterList, numberOfJugglers, minThrow);
+			return filterList;
+		}
+		return FilterListFormat.decode(filters);
+	}
+
+	private static int[] parseRange(String field) {
+		try {
+			int separator = field.indexOf('-', 1);
+			int[] range = new int[2];
+			if (separator < 0) {
+				range[0] = Integer.parseInt(field);
+				range[1] = range[0];
+			}
+			else {
+				range[0] = Integer.parseInt(field.substring(0, separator));
+				range[1] = Integer.parseInt(field.substring(separator + 1));
+			}
+			if (range[0] < 0 || range[1] < range[0] || range[1] > Byte.MAX_VALUE)
+				throw new IllegalArgumentException("Invalid range: " + field);
+			return range;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number: " + field);
+		}
+	}
+}
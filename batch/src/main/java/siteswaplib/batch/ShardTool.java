@@ -0,0 +1,343 @@
+package siteswaplib.batch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import siteswaplib.GenerationShard;
+import siteswaplib.Siteswap;
+import siteswaplib.SiteswapExporter;
+import siteswaplib.SiteswapGenerator;
+
+/**
+ * Splits one exhaustive search into shards (see SiteswapGenerator.createShards()),
+ * which can be run by independent processes or machines, and merges their
+ * results. Every process computes the same shards from the job, so no
+ * coordination is required:
+ *
+ *   shard plan  11 10 2 7 2 default 16          prints the shards and estimates
+ *   shard run   11 10 2 7 2 default 16 3        runs shard 3 of 16
+ *   shard merge job0000_*_shard*.txt.gz         merges the shard files
+ *
+ * The job is a single line of a job file (see JobFile) without ranges. A shard
+ * file is a gzip compressed text file with one siteswap per line, between a
+ * header with the shard token and the job and a trailer with the number of
+ * results and the status:
+ *
+ *   # shard 11,10,2,7,2:3,16:a679:a75a 11 10 2 7 2 1;...
+ *   a6792726264
+ *   ...
+ *   # end 6434 complete
+ *
+ * The merge verifies, that all shards of the job are present, complete and
+ * match the shards computed from the job, and that all siteswaps are in
+ * canonical order and inside of their shard. Only then the merged file is
+ * written in the requested format. It is the same file, that BatchGenerator
+ * writes for the job.
+ *
+ * The exit code is 1, if a shard failed or the verification failed, and 2 for
+ * invalid arguments.
+ */
+public class ShardTool {
+
+	private static final String USAGE =
+			"Usage: shard plan [options] period maxThrow minThrow objects jugglers [filters] shards\n" +
+			"       shard run [options] period maxThrow minThrow objects jugglers [filters] shards index\n" +
+			"       shard merge [options] shardfile...\n" +
+			"  -output dir      directory of the shard files or the merged file (default: .)\n" +
+			"  -format f        text, csv or json, format of the merged file (default: text)\n";
+
+	private static final String HEADER = "# shard ";
+	private static final String TRAILER = "# end ";
+	private static final String COMPLETE = "complete";
+	private static final String INCOMPLETE = "incomplete";
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private File mOutputDirectory = new File(".");
+	private SiteswapExporter.Format mFormat = SiteswapExporter.Format.TEXT;
+
+	public static void main(String[] args) {
+		ShardTool tool = new ShardTool();
+		try {
+			if (args.length == 0)
+				throw new IllegalArgumentException("Missing command");
+			String[] arguments = tool.parseOptions(args);
+			boolean isSuccessful;
+			if (args[0].equals("plan"))
+				isSuccessful = tool.plan(arguments);
+			else if (args[0].equals("run"))
+				isSuccessful = tool.run(arguments);
+			else if (args[0].equals("merge"))
+				isSuccessful = tool.merge(arguments);
+			else
+				throw new IllegalArgumentException("Unknown command " + args[0]);
+			System.exit(isSuccessful ? 0 : 1);
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.print(USAGE);
+			System.exit(2);
+		} catch (IOException e) {
+			System.err.println(e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Returns the arguments after the command, that are not options.
+	 * */
+	private String[] parseOptions(String[] args) {
+		String[] arguments = new String[args.length];
+		int numberOfArguments = 0;
+		for (int i = 1; i < args.length; ++i) {
+			String arg = args[i];
+			if (!arg.startsWith("-")) {
+				arguments[numberOfArguments++] = arg;
+				continue;
+			}
+			if (i + 1 >= args.length)
+				throw new IllegalArgumentException("Missing value of " + arg);
+			String value = args[++i];
+			if (arg.equals("-output"))
+				mOutputDirectory = new File(value);
+			else if (arg.equals("-format"))
+				mFormat = parseFormat(value);
+			else
+				throw new IllegalArgumentException("Unknown option " + arg);
+		}
+		String[] result = new String[numberOfArguments];
+		System.arraycopy(arguments, 0, result, 0, numberOfArguments);
+		return result;
+	}
+
+	private static SiteswapExporter.Format parseFormat(String value) {
+		for (SiteswapExporter.Format format : SiteswapExporter.Format.values()) {
+			if (format.name().equalsIgnoreCase(value))
+				return format;
+		}
+		throw new IllegalArgumentException("Unknown format " + value);
+	}
+
+	private boolean plan(String[] args) throws IOException {
+		if (args.length < 6)
+			throw new IllegalArgumentException("Missing arguments");
+		BatchJob job = parseJob(args, args.length - 1);
+		int numberOfShards = parsePositive("shards", args[args.length - 1]);
+		for (GenerationShard shard : job.createGenerator().createShards(numberOfShards)) {
+			System.out.printf(Locale.US, "%4d %s %.0f nodes%n", shard.getIndex(), shard.toToken(),
+					shard.getEstimatedNodes());
+		}
+		return true;
+	}
+
+	private boolean run(String[] args) throws IOException {
+		if (args.length < 7)
+			throw new IllegalArgumentException("Missing arguments");
+		BatchJob job = parseJob(args, args.length - 2);
+		int numberOfShards = parsePositive("shards", args[args.length - 2]);
+		int index = parseNonNegative("index", args[args.length - 1]);
+		if (index >= numberOfShards)
+			throw new IllegalArgumentException("Invalid value of index: " + index);
+		if (!mOutputDirectory.isDirectory() && !mOutputDirectory.mkdirs())
+			throw new IOException("Could not create output directory " + mOutputDirectory);
+
+		SiteswapGenerator generator = job.createGenerator();
+		GenerationShard shard = generator.createShards(numberOfShards).get(index);
+		generator.setShard(shard);
+		generator.setMaxResults(Integer.MAX_VALUE);
+		generator.setTimeoutMillis(Long.MAX_VALUE);
+		generator.setStoringResults(false);
+
+		File file = new File(mOutputDirectory, String.format(Locale.US, "%s_shard%04dof%04d.txt.gz",
+				job.getName(), index, numberOfShards));
+		OutputStream stream = new GZIPOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+		boolean isComplete;
+		int numberOfResults;
+		long startNanos = System.nanoTime();
+		try {
+			stream.write((HEADER + shard.toToken() + " " + job.toLine() + "\n").getBytes("UTF-8"));
+			SiteswapExporter exporter = new SiteswapExporter(Channels.newChannel(stream),
+					SiteswapExporter.Format.TEXT);
+			generator.setSiteswapSink(exporter);
+			isComplete = generator.generateSiteswaps();
+			exporter.close();
+			numberOfResults = exporter.getNumberOfRows();
+			stream.write((TRAILER + numberOfResults + " " + (isComplete ? COMPLETE : INCOMPLETE) +
+					"\n").getBytes("UTF-8"));
+		} finally {
+			stream.close();
+		}
+		System.out.printf(Locale.US, "%s: %d results, %d nodes (estimated %.0f), %.3f s, %s%n",
+				file.getName(), numberOfResults, generator.getBacktrackingCount(),
+				shard.getEstimatedNodes(), (System.nanoTime() - startNanos) / 1e9,
+				isComplete ? COMPLETE : INCOMPLETE);
+		return isComplete;
+	}
+
+	/**
+	 * The shard files can be given in any order.
+	 * */
+	private boolean merge(String[] args) throws IOException {
+		if (args.length == 0)
+			throw new IllegalArgumentException("Missing shard files");
+
+		// Check the headers first, before anything is written
+		String jobLine = null;
+		File[] files = null;
+		List<GenerationShard> shards = null;
+		for (String name : args) {
+			File file = new File(name);
+			String[] header = readHeader(file);
+			GenerationShard shard = GenerationShard.fromToken(header[0]);
+			if (jobLine == null) {
+				jobLine = header[1];
+				shards = parseJob(jobLine.split(" "), 6).createGenerator()
+						.createShards(shard.getNumberOfShards());
+				files = new File[shards.size()];
+			}
+			if (!header[1].equals(jobLine) || shard.getNumberOfShards() != shards.size())
+				return fail(file + " belongs to another job: " + header[1] + " " + header[0]);
+			if (!shard.equals(shards.get(shard.getIndex())))
+				return fail(file + ": " + shard + " differs from the computed shard " +
+						shards.get(shard.getIndex()));
+			if (files[shard.getIndex()] != null)
+				return fail(file + " and " + files[shard.getIndex()] + " contain the same shard");
+			files[shard.getIndex()] = file;
+		}
+		StringBuilder missingShards = new StringBuilder();
+		for (int i = 0; i < files.length; ++i) {
+			if (files[i] == null)
+				missingShards.append(' ').append(i);
+		}
+		if (missingShards.length() != 0)
+			return fail("Missing shards of " + files.length + ":" + missingShards);
+
+		if (!mOutputDirectory.isDirectory() && !mOutputDirectory.mkdirs())
+			throw new IOException("Could not create output directory " + mOutputDirectory);
+		BatchJob job = parseJob(jobLine.split(" "), 6);
+		File output = new File(mOutputDirectory, job.getName() + "." +
+				mFormat.name().toLowerCase(Locale.US) + ".gz");
+		OutputStream stream = new GZIPOutputStream(new FileOutputStream(output), BUFFER_SIZE);
+		String error;
+		long numberOfResults = 0;
+		try {
+			SiteswapExporter exporter = new SiteswapExporter(Channels.newChannel(stream), mFormat);
+			error = mergeShards(files, shards, job.createGenerator().getNumberOfJugglers(), exporter);
+			exporter.close();
+			numberOfResults = exporter.getNumberOfRows();
+		} finally {
+			stream.close();
+		}
+		if (error != null) {
+			output.delete();
+			return fail(error);
+		}
+		System.out.printf(Locale.US, "Merged %d shards, %d results into %s%n", files.length,
+				numberOfResults, output);
+		return true;
+	}
+
+	/**
+	 * Returns an error message, if a shard file is invalid, null otherwise.
+	 * */
+	private static String mergeShards(File[] files, List<GenerationShard> shards,
+									  int numberOfJugglers, SiteswapExporter exporter)
+			throws IOException {
+		Siteswap previous = null;
+		for (int i = 0; i < files.length; ++i) {
+			BufferedReader reader = openShardFile(files[i]);
+			try {
+				reader.readLine(); // header
+				GenerationShard shard = shards.get(i);
+				int numberOfResults = 0;
+				String line;
+				while ((line = reader.readLine()) != null && !line.startsWith(TRAILER)) {
+					Siteswap siteswap = new Siteswap(line, numberOfJugglers);
+					if (!shard.contains(siteswap))
+						return files[i] + ": " + line + " is not inside of " + shard;
+					if (previous != null && previous.compareTo(siteswap) >= 0)
+						return files[i] + ": " + line + " is not in canonical order";
+					exporter.write(siteswap);
+					previous = siteswap;
+					numberOfResults++;
+				}
+				String expectedTrailer = TRAILER + numberOfResults + " " + COMPLETE;
+				if (line == null || !line.equals(expectedTrailer))
+					return files[i] + " is incomplete: " + (line == null ? "no trailer" : line) +
+							", expected " + expectedTrailer;
+				if (reader.readLine() != null)
+					return files[i] + " continues after the trailer";
+			} finally {
+				reader.close();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the shard token and the job line.
+	 * */
+	private static String[] readHeader(File file) throws IOException {
+		BufferedReader reader = openShardFile(file);
+		try {
+			String line = reader.readLine();
+			if (line == null || !line.startsWith(HEADER) || line.indexOf(' ', HEADER.length()) < 0)
+				throw new IOException(file + " is not a shard file");
+			int separator = line.indexOf(' ', HEADER.length());
+			return new String[]{line.substring(HEADER.length(), separator),
+					line.substring(separator + 1)};
+		} finally {
+			reader.close();
+		}
+	}
+
+	private static BufferedReader openShardFile(File file) throws IOException {
+		return new BufferedReader(new InputStreamReader(new GZIPInputStream(
+				new FileInputStream(file), BUFFER_SIZE), "UTF-8"));
+	}
+
+	/**
+	 * The job consists of the first length arguments.
+	 * */
+	private static BatchJob parseJob(String[] args, int length) throws IOException {
+		StringBuilder line = new StringBuilder();
+		for (int i = 0; i < length; ++i)
+			line.append(args[i]).append(' ');
+		List<BatchJob> jobs = JobFile.read(new BufferedReader(new StringReader(line.toString())));
+		if (jobs.size() != 1)
+			throw new IllegalArgumentException("The job has to be a single parameter set: " + line);
+		return jobs.get(0);
+	}
+
+	private static int parsePositive(String name, String value) {
+		int number = parseNonNegative(name, value);
+		if (number == 0)
+			throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+		return number;
+	}
+
+	private static int parseNonNegative(String name, String value) {
+		try {
+			int number = Integer.parseInt(value);
+			if (number >= 0)
+				return number;
+		} catch (NumberFormatException e) {
+			// handled below
+		}
+		throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+	}
+
+	private static boolean fail(String message) {
+		System.err.println(message);
+		return false;
+	}
+}
@@ -0,0 +1,100 @@
+package siteswaplib.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import siteswaplib.Filter;
+import siteswaplib.InterfaceFilter;
+import siteswaplib.PatternFilter;
+import siteswaplib.Siteswap;
+import siteswaplib.SiteswapGenerator;
+
+/**
+ * Complete generations over a grid of parameters. Besides ops/s, the number of
+ * visited search tree nodes is reported as nodes/s. The allocation rate is
+ * reported by the gc profiler, which is enabled in build.gradle.
+ *
+ * The max throw is numberOfObjects + maxThrowOffset and the number of results is
+ * limited by maxResults, so that every point of the grid finishes in well below a
+ * second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SiteswapGeneratorBenchmark {
+
+	public enum Filters {NONE, DEFAULT, PATTERN, INTERFACE}
+
+	@Param({"3", "4", "5", "6", "7", "8", "9", "10", "11", "12"})
+	public int periodLength;
+
+	@Param({"3", "4", "5", "6", "7", "8", "9"})
+	public int numberOfObjects;
+
+	@Param({"1", "2", "3", "4"})
+	public int numberOfJugglers;
+
+	@Param({"NONE", "DEFAULT", "PATTERN", "INTERFACE"})
+	public Filters filters;
+
+	@Param({"2"})
+	public int maxThrowOffset;
+
+	@Param({"10000"})
+	public int maxResults;
+
+	private LinkedList<Filter> mFilterList;
+
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+		// Reported as rate, i.e. nodes/s
+		public long nodes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			nodes = 0;
+		}
+	}
+
+	@Setup
+	public void setup() {
+		mFilterList = new LinkedList<Filter>();
+		if (filters == Filters.NONE)
+			return;
+
+		Filter.addDefaultFilters(mFilterList, numberOfJugglers, 0);
+		if (filters == Filters.PATTERN) {
+			// no two average throws in a row
+			byte[] pattern = {(byte) numberOfObjects, (byte) numberOfObjects};
+			mFilterList.add(new PatternFilter(new Siteswap(pattern), PatternFilter.Type.EXCLUDE));
+		}
+		else if (filters == Filters.INTERFACE) {
+			byte[] pattern = {(byte) numberOfObjects};
+			mFilterList.add(new InterfaceFilter(new Siteswap(pattern), PatternFilter.Type.EXCLUDE));
+		}
+	}
+
+	@Benchmark
+	public int generateSiteswaps(Counters counters) {
+		SiteswapGenerator generator = new SiteswapGenerator(periodLength,
+				numberOfObjects + maxThrowOffset, 0, numberOfObjects, numberOfJugglers, mFilterList);
+		generator.setMaxResults(maxResults);
+		// Only counted, so that the benchmark measures the search and not the result list
+		generator.setStoringResults(false);
+		generator.generateSiteswaps();
+		counters.nodes += generator.getBacktrackingCount();
+		return generator.getNumberOfResults();
+	}
+}
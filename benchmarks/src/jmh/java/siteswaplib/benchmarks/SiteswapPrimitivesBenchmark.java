@@ -0,0 +1,101 @@
+package siteswaplib.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import siteswaplib.CyclicByteArray;
+import siteswaplib.Siteswap;
+import siteswaplib.SiteswapGenerator;
+
+/**
+ * The data structure operations, that are used in the hot paths of generation
+ * and filtering. The siteswap is a generated two juggler siteswap of the given
+ * period length. The baseline results are in baseline/SiteswapPrimitivesBenchmark.json.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SiteswapPrimitivesBenchmark {
+
+	private static final int NUMBER_OF_JUGGLERS = 2;
+	private static final int NUMBER_OF_OBJECTS = 7;
+	private static final int MAX_THROW = 10;
+
+	@Param({"5", "10", "20"})
+	public int periodLength;
+
+	private Siteswap mSiteswap;
+	private CyclicByteArray mArray;
+	private Siteswap mPattern;
+	private byte mValue;
+
+	@Setup
+	public void setup() {
+		SiteswapGenerator generator = new SiteswapGenerator(periodLength, MAX_THROW, 2,
+				NUMBER_OF_OBJECTS, NUMBER_OF_JUGGLERS);
+		generator.setMaxResults(64);
+		generator.generateSiteswaps();
+		// The first results all start with the highest throws, take a more typical one
+		List<Siteswap> siteswaps = generator.getSiteswaps();
+		mSiteswap = siteswaps.get(siteswaps.size() - 1);
+		mArray = new CyclicByteArray(mSiteswap.toArray());
+		mArray.rotateLeft(1);
+		// pass, any throw, self: does not match at the first position of most siteswaps
+		mPattern = new Siteswap(new byte[]{Siteswap.PASS, Siteswap.DONT_CARE, Siteswap.SELF},
+				NUMBER_OF_JUGGLERS);
+		mValue = (byte) NUMBER_OF_OBJECTS;
+	}
+
+	@Benchmark
+	public int cyclicByteArrayAt() {
+		// Indices beyond the length, as used for the interface during generation
+		int sum = 0;
+		for (int i = 0; i < 2 * periodLength; ++i)
+			sum += mArray.at(i);
+		return sum;
+	}
+
+	@Benchmark
+	public CyclicByteArray cyclicByteArrayModify() {
+		for (int i = 0; i < 2 * periodLength; ++i)
+			mArray.modify(i, (byte) i);
+		return mArray;
+	}
+
+	@Benchmark
+	public boolean isPattern() {
+		return mSiteswap.isPattern(mPattern);
+	}
+
+	@Benchmark
+	public int countValue() {
+		return mSiteswap.countValue(mValue);
+	}
+
+	@Benchmark
+	public Siteswap makeUniqueRepresentation() {
+		// Start from a different rotation each time, the result is always the same
+		mSiteswap.rotateLeft(1);
+		mSiteswap.make_unique_representation();
+		return mSiteswap;
+	}
+
+	@Benchmark
+	public String siteswapToString() {
+		return mSiteswap.toString();
+	}
+
+	@Benchmark
+	public Siteswap toInterface() {
+		return mSiteswap.toInterface();
+	}
+}
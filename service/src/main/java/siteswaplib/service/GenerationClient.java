@@ -0,0 +1,112 @@
+package siteswaplib.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Blocking client of the GenerationServer protocol. One client uses one
+ * connection and is not thread safe.
+ */
+public class GenerationClient implements Closeable {
+
+	public static class Response {
+		private final String mStatus;
+		private final String mSource;
+		private final List<String> mSiteswaps;
+
+		Response(String status, String source, List<String> siteswaps) {
+			mStatus = status;
+			mSource = source;
+			mSiteswaps = siteswaps;
+		}
+
+		/**
+		 * complete, max_results or timeout
+		 * */
+		public String getStatus() {
+			return mStatus;
+		}
+
+		/**
+		 * generated, coalesced or cached
+		 * */
+		public String getSource() {
+			return mSource;
+		}
+
+		public List<String> getSiteswaps() {
+			return mSiteswaps;
+		}
+	}
+
+	private final Socket mSocket;
+	private final BufferedReader mReader;
+	private final Writer mWriter;
+
+	public GenerationClient(int port) throws IOException {
+		mSocket = new Socket(InetAddress.getLoopbackAddress(), port);
+		mReader = new BufferedReader(new InputStreamReader(mSocket.getInputStream(),
+				StandardCharsets.UTF_8));
+		mWriter = new BufferedWriter(new OutputStreamWriter(mSocket.getOutputStream(),
+				StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Throws an IOException, if the server answers with an error.
+	 * */
+	public Response generate(GenerationRequest request) throws IOException {
+		String header = command("GENERATE " + request.toLine());
+		String[] fields = header.split(" ");
+		if (fields.length != 4 || !fields[0].equals("OK"))
+			throw new IOException("Unexpected response: " + header);
+		int size = Integer.parseInt(fields[1]);
+		List<String> siteswaps = new ArrayList<String>(size);
+		for (int i = 0; i < size; ++i)
+			siteswaps.add(readLine());
+		String end = readLine();
+		if (!end.equals("END"))
+			throw new IOException("Unexpected response: " + end);
+		return new Response(fields[2], fields[3], siteswaps);
+	}
+
+	public String stats() throws IOException {
+		return command("STATS");
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			mWriter.write("QUIT\n");
+			mWriter.flush();
+		} finally {
+			mSocket.close();
+		}
+	}
+
+	private String command(String command) throws IOException {
+		mWriter.write(command);
+		mWriter.write('\n');
+		mWriter.flush();
+		String response = readLine();
+		if (response.startsWith("ERROR"))
+			throw new IOException(response);
+		return response;
+	}
+
+	private String readLine() throws IOException {
+		String line = mReader.readLine();
+		if (line == null)
+			throw new IOException("Connection closed by server");
+		return line;
+	}
+}
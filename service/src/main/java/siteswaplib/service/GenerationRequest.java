@@ -0,0 +1,122 @@
+package siteswaplib.service;
+
+import java.util.LinkedList;
+import java.util.Locale;
+
+import siteswaplib.Filter;
+import siteswaplib.FilterListFormat;
+import siteswaplib.SiteswapGenerator;
+
+/**
+ * Parameters of one generation request. The text form, as used by the protocol
+ * of GenerationServer, is
+ *
+ *   period maxThrow minThrow objects jugglers filters maxResults budgetMillis
+ *
+ * filters is a FilterListFormat token, "default" for the default filters of the
+ * number of jugglers or "none". The budget is the wall time from the submission
+ * until the search is stopped and the results found so far are returned.
+ */
+public class GenerationRequest {
+
+	public static final String DEFAULT_FILTERS = "default";
+	public static final String NO_FILTERS = "none";
+
+	private final int mPeriodLength;
+	private final int mMaxThrow;
+	private final int mMinThrow;
+	private final int mNumberOfObjects;
+	private final int mNumberOfJugglers;
+	private final LinkedList<Filter> mFilterList;
+	private final int mMaxResults;
+	private final long mBudgetMillis;
+	private final String mKey;
+
+	public GenerationRequest(int periodLength, int maxThrow, int minThrow, int numberOfObjects,
+							 int numberOfJugglers, LinkedList<Filter> filterList, int maxResults,
+							 long budgetMillis) {
+		if (periodLength < 1 || minThrow < 0 || maxThrow > Byte.MAX_VALUE ||
+				numberOfObjects < 0 || numberOfJugglers < 1)
+			throw new IllegalArgumentException("Invalid parameters");
+		if (maxResults < 1 || budgetMillis < 1)
+			throw new IllegalArgumentException("maxResults and budget must be positive");
+		mPeriodLength = periodLength;
+		mMaxThrow = maxThrow;
+		mMinThrow = minThrow;
+		mNumberOfObjects = numberOfObjects;
+		mNumberOfJugglers = numberOfJugglers;
+		mFilterList = filterList;
+		mMaxResults = maxResults;
+		mBudgetMillis = budgetMillis;
+		// The budget is not part of the key. Requests, that only differ in the
+		// budget, generate the same siteswaps and are coalesced.
+		mKey = String.format(Locale.US, "%d %d %d %d %d %d %s", periodLength, maxThrow, minThrow,
+				numberOfObjects, numberOfJugglers, maxResults, FilterListFormat.encode(filterList));
+	}
+
+	/**
+	 * Throws an IllegalArgumentException, if the line is invalid.
+	 * */
+	public static GenerationRequest parse(String line) {
+		String[] fields = line.trim().split("\\s+");
+		if (fields.length != 8)
+			throw new IllegalArgumentException("Expected 8 fields, but found " + fields.length);
+		try {
+			int periodLength = Integer.parseInt(fields[0]);
+			int maxThrow = Integer.parseInt(fields[1]);
+			int minThrow = Integer.parseInt(fields[2]);
+			int numberOfObjects = Integer.parseInt(fields[3]);
+			int numberOfJugglers = Integer.parseInt(fields[4]);
+			LinkedList<Filter> filterList;
+			if (fields[5].equals(NO_FILTERS)) {
+				filterList = new LinkedList<Filter>();
+			}
+			else if (fields[5].equals(DEFAULT_FILTERS)) {
+				filterList = new LinkedList<Filter>();
+				Filter.addDefaultFilters(filterList, numberOfJugglers, minThrow);
+			}
+			else {
+				filterList = FilterListFormat.decode(fields[5]);
+			}
+			return new GenerationRequest(periodLength, maxThrow, minThrow, numberOfObjects,
+					numberOfJugglers, filterList, Integer.parseInt(fields[6]), Long.parseLong(fields[7]));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number: " + e.getMessage());
+		}
+	}
+
+	public String toLine() {
+		return String.format(Locale.US, "%d %d %d %d %d %s %d %d", mPeriodLength, mMaxThrow,
+				mMinThrow, mNumberOfObjects, mNumberOfJugglers, FilterListFormat.encode(mFilterList),
+				mMaxResults, mBudgetMillis);
+	}
+
+	public SiteswapGenerator createGenerator() {
+		return new SiteswapGenerator(mPeriodLength, mMaxThrow, mMinThrow, mNumberOfObjects,
+				mNumberOfJugglers, new LinkedList<Filter>(mFilterList));
+	}
+
+	/**
+	 * Requests with the same key generate the same siteswaps.
+	 * */
+	public String getKey() {
+		return mKey;
+	}
+
+	public int getNumberOfJugglers() {
+		return mNumberOfJugglers;
+	}
+
+	public int getMaxResults() {
+		return mMaxResults;
+	}
+
+	public long getBudgetMillis() {
+		return mBudgetMillis;
+	}
+
+	@Override
+	public String toString() {
+		return toLine();
+	}
+}
@@ -0,0 +1,48 @@
+package siteswaplib.service;
+
+import siteswaplib.CompressedSiteswapList;
+
+/**
+ * Siteswaps of a finished search of the GenerationService. The result is not
+ * modified anymore and can be shared by coalesced requests and the cache.
+ */
+public class GenerationResult {
+
+	public enum Status {COMPLETE, MAX_RESULTS, TIMEOUT}
+
+	private final CompressedSiteswapList mSiteswaps;
+	private final Status mStatus;
+	private final long mNumberOfNodes;
+	private final int mNumberOfSlices;
+
+	public GenerationResult(CompressedSiteswapList siteswaps, Status status, long numberOfNodes,
+							int numberOfSlices) {
+		mSiteswaps = siteswaps;
+		mStatus = status;
+		mNumberOfNodes = numberOfNodes;
+		mNumberOfSlices = numberOfSlices;
+	}
+
+	public CompressedSiteswapList getSiteswaps() {
+		return mSiteswaps;
+	}
+
+	public int size() {
+		return mSiteswaps.size();
+	}
+
+	public Status getStatus() {
+		return mStatus;
+	}
+
+	public long getNumberOfNodes() {
+		return mNumberOfNodes;
+	}
+
+	/**
+	 * Number of time slices, in which the search was run
+	 * */
+	public int getNumberOfSlices() {
+		return mNumberOfSlices;
+	}
+}
@@ -0,0 +1,251 @@
+package siteswaplib.service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import siteswaplib.Siteswap;
+
+/**
+ * Accepts generation requests on a localhost socket and runs them on a
+ * GenerationService. The protocol is line based (UTF-8). A connection can send
+ * any number of commands:
+ *
+ *   GENERATE period maxThrow minThrow objects jugglers filters maxResults budgetMillis
+ *     OK numberOfResults status source
+ *     (one siteswap per line)
+ *     END
+ *
+ *   STATS
+ *     STATS requests=n searches=n coalesced=n cached=n slices=n cachedSiteswaps=n
+ *
+ *   QUIT
+ *
+ * status is complete, max_results or timeout, source is generated, coalesced or
+ * cached (see GenerationService). Invalid commands are answered with
+ * "ERROR message".
+ *
+ * Every connection is handled on its own thread of RequestThreads, i.e. on a
+ * virtual thread on Java 21 and later. The searches run on the bounded pool of
+ * the service. The results are written with blocking writes, while they are
+ * decoded from the compressed result, so a slow client only parks its thread.
+ */
+public class GenerationServer implements Closeable {
+
+	public static final int DEFAULT_PORT = 7323;
+	// Many clients may connect at the same time
+	private static final int BACKLOG = 1024;
+	// Pause after a failed accept, e.g. when the process is out of file descriptors
+	private static final long MIN_ACCEPT_RETRY_MILLIS = 10;
+	private static final long MAX_ACCEPT_RETRY_MILLIS = 1000;
+
+	private static final String USAGE =
+			"Usage: service [options]\n" +
+			"  -port n          port on localhost, 0 for any free port (default: " + DEFAULT_PORT + ")\n" +
+			"  -threads n       parallelism of the search pool (default: number of processors)\n" +
+			"  -slice ms        time slice of a search (default: " +
+					GenerationService.DEFAULT_SLICE_MILLIS + ")\n" +
+			"  -cache n         maximum number of cached siteswaps (default: " +
+					GenerationService.DEFAULT_MAX_CACHED_SITESWAPS + ")\n";
+
+	private final GenerationService mService;
+	private final ServerSocket mServerSocket;
+	private final ExecutorService mConnectionExecutor;
+	private final Set<Socket> mConnections =
+			Collections.newSetFromMap(new ConcurrentHashMap<Socket, Boolean>());
+	private Thread mAcceptThread = null;
+
+	/**
+	 * The server only listens on the loopback address.
+	 * */
+	public GenerationServer(GenerationService service, int port) throws IOException {
+		mService = service;
+		mServerSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+		mConnectionExecutor = RequestThreads.newExecutor();
+	}
+
+	public static void main(String[] args) throws IOException {
+		int port = DEFAULT_PORT;
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		long sliceMillis = GenerationService.DEFAULT_SLICE_MILLIS;
+		int maxCachedSiteswaps = GenerationService.DEFAULT_MAX_CACHED_SITESWAPS;
+		try {
+			for (int i = 0; i < args.length; i += 2) {
+				if (i + 1 >= args.length)
+					throw new IllegalArgumentException("Missing value of " + args[i]);
+				int value = Integer.parseInt(args[i + 1]);
+				if (args[i].equals("-port"))
+					port = value;
+				else if (args[i].equals("-threads"))
+					parallelism = value;
+				else if (args[i].equals("-slice"))
+					sliceMillis = value;
+				else if (args[i].equals("-cache"))
+					maxCachedSiteswaps = value;
+				else
+					throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		} catch (IllegalArgumentException e) {
+			// also NumberFormatException
+			System.err.println(e.getMessage());
+			System.err.print(USAGE);
+			System.exit(2);
+		}
+
+		GenerationServer server = new GenerationServer(
+				new GenerationService(parallelism, sliceMillis, maxCachedSiteswaps), port);
+		System.out.println("Listening on " + server.mServerSocket.getLocalSocketAddress() +
+				(RequestThreads.isVirtual() ? " (virtual threads)" : " (platform threads)"));
+		server.acceptConnections();
+	}
+
+	/**
+	 * Accepts connections on a new thread.
+	 * */
+	public void start() {
+		mAcceptThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				acceptConnections();
+			}
+		}, "GenerationServer accept");
+		mAcceptThread.start();
+	}
+
+	public int getPort() {
+		return mServerSocket.getLocalPort();
+	}
+
+	public GenerationService getService() {
+		return mService;
+	}
+
+	/**
+	 * Stops accepting connections and closes the open connections. The service
+	 * is not shut down.
+	 * */
+	@Override
+	public void close() throws IOException {
+		mServerSocket.close();
+		mConnectionExecutor.shutdownNow();
+		for (Socket socket : mConnections)
+			socket.close();
+	}
+
+	/**
+	 * Failed accepts are retried after a pause, that doubles with every failure
+	 * in a row, so a persistent error does not keep a processor busy.
+	 * */
+	private void acceptConnections() {
+		long retryMillis = MIN_ACCEPT_RETRY_MILLIS;
+		while (!mServerSocket.isClosed()) {
+			final Socket socket;
+			try {
+				socket = mServerSocket.accept();
+				retryMillis = MIN_ACCEPT_RETRY_MILLIS;
+			} catch (IOException e) {
+				if (mServerSocket.isClosed())
+					return;
+				System.err.println("Accept failed: " + e.getMessage());
+				try {
+					Thread.sleep(retryMillis);
+				} catch (InterruptedException interrupted) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				retryMillis = Math.min(2 * retryMillis, MAX_ACCEPT_RETRY_MILLIS);
+				continue;
+			}
+			mConnectionExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					handleConnection(socket);
+				}
+			});
+		}
+	}
+
+	private void handleConnection(Socket socket) {
+		mConnections.add(socket);
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer writer = new BufferedWriter(new OutputStreamWriter(
+					socket.getOutputStream(), StandardCharsets.UTF_8));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.equals("QUIT"))
+					break;
+				handleCommand(line, writer);
+				writer.flush();
+			}
+		} catch (SocketException e) {
+			// Connection closed by the client
+		} catch (IOException e) {
+			System.err.println("Connection failed: " + e.getMessage());
+		} catch (InterruptedException e) {
+			// Server closed
+		} finally {
+			mConnections.remove(socket);
+			try {
+				socket.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+
+	private void handleCommand(String line, Writer writer) throws IOException, InterruptedException {
+		if (line.equals("STATS")) {
+			writer.write(String.format(Locale.US,
+					"STATS requests=%d searches=%d coalesced=%d cached=%d slices=%d cachedSiteswaps=%d\n",
+					mService.getNumberOfRequests(), mService.getNumberOfSearches(),
+					mService.getNumberOfCoalescedRequests(), mService.getNumberOfCacheHits(),
+					mService.getNumberOfSlices(), mService.getNumberOfCachedSiteswaps()));
+			return;
+		}
+		if (!line.startsWith("GENERATE ")) {
+			writer.write("ERROR Unknown command\n");
+			return;
+		}
+
+		GenerationService.Submission submission;
+		try {
+			submission = mService.submit(GenerationRequest.parse(line.substring("GENERATE ".length())));
+		} catch (IllegalArgumentException e) {
+			writer.write("ERROR " + e.getMessage() + "\n");
+			return;
+		}
+		GenerationResult result;
+		try {
+			result = submission.getResult().get();
+		} catch (ExecutionException e) {
+			writer.write("ERROR " + e.getCause() + "\n");
+			return;
+		}
+		writer.write(String.format(Locale.US, "OK %d %s %s\n", result.size(),
+				result.getStatus().name().toLowerCase(Locale.US),
+				submission.getSource().name().toLowerCase(Locale.US)));
+		for (Siteswap siteswap : result.getSiteswaps()) {
+			writer.write(siteswap.toString());
+			writer.write('\n');
+		}
+		writer.write("END\n");
+	}
+}
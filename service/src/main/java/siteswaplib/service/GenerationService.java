@@ -0,0 +1,325 @@
+package siteswaplib.service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import siteswaplib.CompressedSiteswapList;
+import siteswaplib.GenerationCheckpoint;
+import siteswaplib.Siteswap;
+import siteswaplib.SiteswapGenerator;
+import siteswaplib.SiteswapSink;
+
+/**
+ * Runs generation requests on one shared work-stealing pool.
+ *
+ * Searches are run in time slices. A search, that is not finished after its
+ * slice, is continued from its checkpoint (see GenerationCheckpoint) in a later
+ * slice. The searches wait in one FIFO run queue, so all running requests get
+ * slices in turn and a large search cannot block small ones. The pool tasks only
+ * take the next search from the run queue, therefore it does not matter, which
+ * worker executes or steals them.
+ *
+ * Requests with the same key (see GenerationRequest.getKey()) as a running search
+ * get the result of this search. The search runs until the latest deadline of its
+ * requests. A request, whose own budget ends before the search is finished, gets
+ * the siteswaps found so far with status TIMEOUT. Results, that are not cut by
+ * the time budget, are cached, until the cache exceeds the maximum number of
+ * siteswaps. Then the least recently used results are removed.
+ */
+public class GenerationService {
+
+	public enum Source {GENERATED, COALESCED, CACHED}
+
+	public static final long DEFAULT_SLICE_MILLIS = 20;
+	public static final int DEFAULT_MAX_CACHED_SITESWAPS = 1000000;
+
+	/**
+	 * Result of GenerationService.submit()
+	 * */
+	public static class Submission {
+		private final Source mSource;
+		private final CompletableFuture<GenerationResult> mResult;
+
+		Submission(Source source, CompletableFuture<GenerationResult> result) {
+			mSource = source;
+			mResult = result;
+		}
+
+		public Source getSource() {
+			return mSource;
+		}
+
+		public CompletableFuture<GenerationResult> getResult() {
+			return mResult;
+		}
+	}
+
+	private final ForkJoinPool mPool;
+	// Completes the results of requests, whose budget ends before their search
+	private final ScheduledThreadPoolExecutor mTimer;
+	private final long mSliceMillis;
+	private final int mMaxCachedSiteswaps;
+	private final ConcurrentLinkedQueue<Search> mRunQueue = new ConcurrentLinkedQueue<Search>();
+	private final Runnable mSliceRunner = new Runnable() {
+		@Override
+		public void run() {
+			runSlice();
+		}
+	};
+
+	// Guarded by this
+	private final Map<String, Search> mRunningSearches = new HashMap<String, Search>();
+	private final LinkedHashMap<String, GenerationResult> mCache =
+			new LinkedHashMap<String, GenerationResult>(16, 0.75f, true);
+	private int mNumberOfCachedSiteswaps = 0;
+
+	private final AtomicLong mNumberOfRequests = new AtomicLong();
+	private final AtomicLong mNumberOfSearches = new AtomicLong();
+	private final AtomicLong mNumberOfCoalescedRequests = new AtomicLong();
+	private final AtomicLong mNumberOfCacheHits = new AtomicLong();
+	private final AtomicLong mNumberOfSlices = new AtomicLong();
+
+	public GenerationService(int parallelism, long sliceMillis, int maxCachedSiteswaps) {
+		// FIFO order for forked tasks, the tasks are never joined
+		mPool = new ForkJoinPool(parallelism, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+				null, true);
+		mSliceMillis = sliceMillis;
+		mMaxCachedSiteswaps = maxCachedSiteswaps;
+		mTimer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "GenerationService timer");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		// Most requests finish before their budget, the timeouts are cancelled then
+		mTimer.setRemoveOnCancelPolicy(true);
+	}
+
+	public GenerationService(int parallelism) {
+		this(parallelism, DEFAULT_SLICE_MILLIS, DEFAULT_MAX_CACHED_SITESWAPS);
+	}
+
+	public Submission submit(GenerationRequest request) {
+		mNumberOfRequests.incrementAndGet();
+		long deadlineMillis = System.currentTimeMillis() + request.getBudgetMillis();
+		Search search;
+		synchronized (this) {
+			GenerationResult cachedResult = mCache.get(request.getKey());
+			if (cachedResult != null) {
+				mNumberOfCacheHits.incrementAndGet();
+				return new Submission(Source.CACHED, CompletableFuture.completedFuture(cachedResult));
+			}
+			search = mRunningSearches.get(request.getKey());
+			if (search != null) {
+				mNumberOfCoalescedRequests.incrementAndGet();
+				if (deadlineMillis > search.mDeadlineMillis)
+					search.mDeadlineMillis = deadlineMillis;
+				return new Submission(Source.COALESCED, createResult(search, request.getBudgetMillis()));
+			}
+			search = new Search(request, deadlineMillis);
+			mRunningSearches.put(request.getKey(), search);
+		}
+		mNumberOfSearches.incrementAndGet();
+		mRunQueue.add(search);
+		mPool.execute(mSliceRunner);
+		return new Submission(Source.GENERATED, createResult(search, request.getBudgetMillis()));
+	}
+
+	/**
+	 * The result of one request of the search. It is completed with the result of
+	 * the search or after the budget of the request with the siteswaps found so far.
+	 * */
+	private CompletableFuture<GenerationResult> createResult(final Search search, long budgetMillis) {
+		final CompletableFuture<GenerationResult> result = new CompletableFuture<GenerationResult>();
+		final ScheduledFuture<?> timeout = mTimer.schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (!result.isDone())
+					result.complete(search.createPartialResult());
+			}
+		}, budgetMillis, TimeUnit.MILLISECONDS);
+		search.mResult.whenComplete(new BiConsumer<GenerationResult, Throwable>() {
+			@Override
+			public void accept(GenerationResult searchResult, Throwable error) {
+				timeout.cancel(false);
+				if (error == null)
+					result.complete(searchResult);
+				else
+					result.completeExceptionally(error);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Running searches are not finished anymore.
+	 * */
+	public void shutdown() {
+		mPool.shutdownNow();
+		mTimer.shutdownNow();
+	}
+
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		return mPool.awaitTermination(timeout, unit);
+	}
+
+	private void runSlice() {
+		Search search = mRunQueue.poll();
+		if (search == null)
+			return;
+		mNumberOfSlices.incrementAndGet();
+		GenerationResult result;
+		try {
+			result = search.runSlice(mSliceMillis);
+		} catch (RuntimeException e) {
+			finish(search, null);
+			search.mResult.completeExceptionally(e);
+			return;
+		}
+		if (result == null || !finish(search, result)) {
+			mRunQueue.add(search);
+			mPool.execute(mSliceRunner);
+			return;
+		}
+		search.mResult.complete(result);
+	}
+
+	/**
+	 * Returns false, if the search timed out, but the deadline was extended by a
+	 * new request in the meantime. The search has to be continued then.
+	 * */
+	private synchronized boolean finish(Search search, GenerationResult result) {
+		if (result != null && result.getStatus() == GenerationResult.Status.TIMEOUT &&
+				search.mDeadlineMillis > System.currentTimeMillis())
+			return false;
+		String key = search.mRequest.getKey();
+		mRunningSearches.remove(key);
+		if (result == null || result.getStatus() == GenerationResult.Status.TIMEOUT ||
+				result.size() > mMaxCachedSiteswaps)
+			return true;
+		mCache.put(key, result);
+		mNumberOfCachedSiteswaps += result.size();
+		Iterator<GenerationResult> it = mCache.values().iterator();
+		while (mNumberOfCachedSiteswaps > mMaxCachedSiteswaps) {
+			mNumberOfCachedSiteswaps -= it.next().size();
+			it.remove();
+		}
+		return true;
+	}
+
+	public long getNumberOfRequests() {
+		return mNumberOfRequests.get();
+	}
+
+	public long getNumberOfSearches() {
+		return mNumberOfSearches.get();
+	}
+
+	public long getNumberOfCoalescedRequests() {
+		return mNumberOfCoalescedRequests.get();
+	}
+
+	public long getNumberOfCacheHits() {
+		return mNumberOfCacheHits.get();
+	}
+
+	public long getNumberOfSlices() {
+		return mNumberOfSlices.get();
+	}
+
+	public synchronized int getNumberOfCachedSiteswaps() {
+		return mNumberOfCachedSiteswaps;
+	}
+
+	/**
+	 * State of a search between its slices. Only one slice of a search runs at a
+	 * time, because the search is either in the run queue or in a running slice.
+	 * The siteswaps are also read by the timer for partial results, therefore they
+	 * are guarded by the lock of the list.
+	 * */
+	private static class Search implements SiteswapSink {
+		final GenerationRequest mRequest;
+		final CompletableFuture<GenerationResult> mResult = new CompletableFuture<GenerationResult>();
+		final SiteswapGenerator mGenerator;
+		final CompressedSiteswapList mSiteswaps;
+		// Latest deadline of all requests of the search, only increased under the
+		// lock of the service
+		volatile long mDeadlineMillis;
+		volatile long mNumberOfNodes = 0;
+		volatile int mNumberOfSlices = 0;
+
+		Search(GenerationRequest request, long deadlineMillis) {
+			mRequest = request;
+			mDeadlineMillis = deadlineMillis;
+			mSiteswaps = new CompressedSiteswapList(request.getNumberOfJugglers());
+			mGenerator = request.createGenerator();
+			mGenerator.setStoringResults(false);
+			mGenerator.setSiteswapSink(this);
+		}
+
+		/**
+		 * Returns the result, if the search is finished, null otherwise.
+		 * */
+		GenerationResult runSlice(long sliceMillis) {
+			long remainingMillis = mDeadlineMillis - System.currentTimeMillis();
+			if (remainingMillis <= 0)
+				return createResult(GenerationResult.Status.TIMEOUT);
+
+			mNumberOfSlices++;
+			int numberOfSiteswaps;
+			synchronized (mSiteswaps) {
+				numberOfSiteswaps = mSiteswaps.size();
+			}
+			mGenerator.setMaxResults(mRequest.getMaxResults() - numberOfSiteswaps);
+			mGenerator.setTimeoutMillis(Math.min(sliceMillis, remainingMillis));
+			boolean isComplete = mGenerator.generateSiteswaps();
+			mNumberOfNodes += mGenerator.getBacktrackingCount();
+			if (isComplete)
+				return createResult(GenerationResult.Status.COMPLETE);
+
+			GenerationCheckpoint checkpoint = mGenerator.getCheckpoint();
+			if (checkpoint == null || checkpoint.isPrefixExplored())
+				return createResult(GenerationResult.Status.MAX_RESULTS);
+			// End of the slice
+			mGenerator.resumeFrom(checkpoint);
+			return null;
+		}
+
+		private GenerationResult createResult(GenerationResult.Status status) {
+			return new GenerationResult(mSiteswaps, status, mNumberOfNodes, mNumberOfSlices);
+		}
+
+		/**
+		 * Copy of the siteswaps found so far, the search continues.
+		 * */
+		GenerationResult createPartialResult() {
+			CompressedSiteswapList siteswaps;
+			synchronized (mSiteswaps) {
+				siteswaps = new CompressedSiteswapList(mSiteswaps, mRequest.getNumberOfJugglers());
+			}
+			return new GenerationResult(siteswaps, GenerationResult.Status.TIMEOUT, mNumberOfNodes,
+					mNumberOfSlices);
+		}
+
+		@Override
+		public boolean onSiteswapGenerated(Siteswap siteswap) {
+			synchronized (mSiteswaps) {
+				mSiteswaps.add(siteswap);
+			}
+			return true;
+		}
+	}
+}
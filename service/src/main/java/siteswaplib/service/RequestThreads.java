@@ -0,0 +1,52 @@
+package siteswaplib.service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Threads for handling requests, which mostly wait: for the search results and
+ * for the client, while the results are written. On Java 21 and later, every
+ * task runs on its own virtual thread, so thousands of concurrent requests only
+ * need a few carrier threads. Older runtimes fall back to a new platform thread
+ * per task.
+ *
+ * The search itself never runs on these threads, but on the bounded pool of the
+ * GenerationService. Waiting for the result (CompletableFuture.get()) and the
+ * blocking socket writes park a virtual thread without pinning its carrier. The
+ * monitors of the service are only held for short, non-blocking updates.
+ */
+public class RequestThreads {
+
+	private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutor();
+
+	public static ExecutorService newExecutor() {
+		if (NEW_VIRTUAL_THREAD_EXECUTOR != null) {
+			try {
+				return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				// checked by findVirtualThreadExecutor()
+			}
+		}
+		return Executors.newCachedThreadPool();
+	}
+
+	public static boolean isVirtual() {
+		return NEW_VIRTUAL_THREAD_EXECUTOR != null;
+	}
+
+	/**
+	 * Executors.newVirtualThreadPerTaskExecutor() is looked up by reflection, so
+	 * the service still compiles and runs on Java 8. On Java 19 and 20 it is a
+	 * preview API, which fails unless previews are enabled.
+	 * */
+	private static Method findVirtualThreadExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			((ExecutorService) method.invoke(null)).shutdown();
+			return method;
+		} catch (ReflectiveOperationException e) {
+			return null;
+		}
+	}
+}
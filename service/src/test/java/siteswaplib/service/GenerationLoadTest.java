@@ -0,0 +1,156 @@
+package siteswaplib.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import siteswaplib.SiteswapGenerator;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Sends thousands of small requests at the same time, each from its own
+ * connection, to a GenerationServer with a small search pool.
+ *
+ * Before Java 21 the connections are handled on platform threads and only
+ * concurrentSmallRequests() runs. virtualThreadsAreNotPinned() runs the same load
+ * on virtual threads and checks with JFR, that no connection pins its carrier
+ * thread. JFR is accessed by reflection, because the module is built for Java 8.
+ */
+public class GenerationLoadTest {
+
+	private static final int NUMBER_OF_CLIENTS = 2000;
+	private static final long SEED = 20171104;
+
+	private GenerationServer mServer;
+
+	@Before
+	public void setUp() throws IOException {
+		// No cache, so most requests either start or join a search
+		mServer = new GenerationServer(new GenerationService(2, 5, 0), 0);
+		mServer.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		mServer.close();
+		mServer.getService().shutdown();
+	}
+
+	@Test
+	public void concurrentSmallRequests() throws Exception {
+		runRequests();
+	}
+
+	@Test
+	public void virtualThreadsAreNotPinned() throws Exception {
+		assumeTrue(RequestThreads.isVirtual());
+		File file = File.createTempFile("pinned", ".jfr");
+		try {
+			Class<?> recordingClass = Class.forName("jdk.jfr.Recording");
+			Object recording = recordingClass.getConstructor().newInstance();
+			Object settings = recordingClass.getMethod("enable", String.class)
+					.invoke(recording, "jdk.VirtualThreadPinned");
+			Class.forName("jdk.jfr.EventSettings").getMethod("withThreshold", Duration.class)
+					.invoke(settings, Duration.ZERO);
+			recordingClass.getMethod("start").invoke(recording);
+			try {
+				runRequests();
+			} finally {
+				recordingClass.getMethod("stop").invoke(recording);
+				recordingClass.getMethod("dump", Path.class)
+						.invoke(recording, file.toPath());
+				recordingClass.getMethod("close").invoke(recording);
+			}
+
+			List<?> events = (List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+					.getMethod("readAllEvents", Path.class).invoke(null, file.toPath());
+			Method getEventType = Class.forName("jdk.jfr.consumer.RecordedEvent").getMethod("getEventType");
+			Method getName = Class.forName("jdk.jfr.EventType").getMethod("getName");
+			for (Object event : events) {
+				if (getName.invoke(getEventType.invoke(event)).equals("jdk.VirtualThreadPinned"))
+					fail("Carrier thread pinned: " + event);
+			}
+		} finally {
+			file.delete();
+		}
+	}
+
+	private void runRequests() throws Exception {
+		List<String> requests = new ArrayList<String>();
+		Map<String, Integer> expectedSizes = new HashMap<String, Integer>();
+		for (int period = 3; period <= 6; ++period) {
+			for (int objects = 3; objects <= 5; ++objects) {
+				for (int maxThrow = objects + 1; maxThrow <= objects + 3; ++maxThrow) {
+					for (int jugglers = 1; jugglers <= 2; ++jugglers) {
+						String line = String.format(Locale.US, "%d %d 0 %d %d default 1000000 30000",
+								period, maxThrow, objects, jugglers);
+						GenerationRequest request = GenerationRequest.parse(line);
+						SiteswapGenerator generator = request.createGenerator();
+						generator.setMaxResults(request.getMaxResults());
+						assertTrue(generator.generateSiteswaps());
+						expectedSizes.put(line, generator.getSiteswaps().size());
+						requests.add(line);
+					}
+				}
+			}
+		}
+
+		final CountDownLatch startGate = new CountDownLatch(1);
+		ExecutorService clients = RequestThreads.newExecutor();
+		List<Future<GenerationClient.Response>> responses = new ArrayList<Future<GenerationClient.Response>>();
+		List<String> sentRequests = new ArrayList<String>();
+		Random random = new Random(SEED);
+		try {
+			for (int i = 0; i < NUMBER_OF_CLIENTS; ++i) {
+				final String line = requests.get(random.nextInt(requests.size()));
+				sentRequests.add(line);
+				responses.add(clients.submit(new Callable<GenerationClient.Response>() {
+					@Override
+					public GenerationClient.Response call() throws Exception {
+						startGate.await();
+						GenerationClient client = new GenerationClient(mServer.getPort());
+						try {
+							return client.generate(GenerationRequest.parse(line));
+						} finally {
+							client.close();
+						}
+					}
+				}));
+			}
+
+			startGate.countDown();
+			for (int i = 0; i < NUMBER_OF_CLIENTS; ++i) {
+				GenerationClient.Response response = responses.get(i).get(60, TimeUnit.SECONDS);
+				String line = sentRequests.get(i);
+				assertEquals(line, "complete", response.getStatus());
+				assertEquals(line, (int) expectedSizes.get(line), response.getSiteswaps().size());
+			}
+
+			GenerationService service = mServer.getService();
+			assertEquals(NUMBER_OF_CLIENTS, service.getNumberOfRequests());
+			assertEquals(NUMBER_OF_CLIENTS, service.getNumberOfSearches() +
+					service.getNumberOfCoalescedRequests() + service.getNumberOfCacheHits());
+		} finally {
+			clients.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package siteswaplib.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import siteswaplib.Siteswap;
+import siteswaplib.SiteswapGenerator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs a GenerationServer on a free port of the loopback interface.
+ */
+public class GenerationServerTest {
+
+	// About 150000 nodes, i.e. many time slices
+	private static final String LARGE_REQUEST = "11 10 2 7 2 default 1000000 60000";
+	// Far too large to be finished within the budget
+	private static final String HUGE_REQUEST = "16 12 0 7 2 default 1000000 200";
+
+	private GenerationServer mServer;
+
+	@Before
+	public void setUp() throws IOException {
+		mServer = new GenerationServer(new GenerationService(2, 5, 100000), 0);
+		mServer.start();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		mServer.close();
+		mServer.getService().shutdown();
+	}
+
+	@Test
+	public void resultsMatchGenerator() throws IOException {
+		GenerationClient client = new GenerationClient(mServer.getPort());
+		try {
+			for (String line : new String[]{"5 10 2 7 2 default 1000000 60000",
+					"7 10 2 7 2 1;NG:-2:1;NE:3:0;PE:77 1000000 60000", "6 9 0 4 1 none 1000000 60000",
+					"6 9 0 4 1 none 20 60000", LARGE_REQUEST}) {
+				GenerationRequest request = GenerationRequest.parse(line);
+				SiteswapGenerator generator = request.createGenerator();
+				generator.setMaxResults(request.getMaxResults());
+				boolean isComplete = generator.generateSiteswaps();
+
+				GenerationClient.Response response = client.generate(request);
+				assertEquals(line, toStrings(generator.getSiteswaps()), response.getSiteswaps());
+				assertEquals(line, isComplete ? "complete" : "max_results", response.getStatus());
+			}
+		} finally {
+			client.close();
+		}
+	}
+
+	@Test
+	public void identicalRequestsAreCoalescedAndCached() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<GenerationClient.Response>> responses = new ArrayList<Future<GenerationClient.Response>>();
+			for (int i = 0; i < 4; ++i)
+				responses.add(clients.submit(generateCall(LARGE_REQUEST)));
+			List<String> siteswaps = responses.get(0).get().getSiteswaps();
+			for (Future<GenerationClient.Response> response : responses)
+				assertEquals(siteswaps, response.get().getSiteswaps());
+		} finally {
+			clients.shutdown();
+		}
+
+		GenerationService service = mServer.getService();
+		assertEquals(1, service.getNumberOfSearches());
+		assertEquals(3, service.getNumberOfCoalescedRequests() + service.getNumberOfCacheHits());
+		assertEquals("cached", generateCall(LARGE_REQUEST).call().getSource());
+
+		// A different budget does not change the results
+		String otherBudget = LARGE_REQUEST.replace(" 60000", " 50000");
+		assertEquals("cached", generateCall(otherBudget).call().getSource());
+		assertEquals(1, service.getNumberOfSearches());
+	}
+
+	@Test
+	public void budgetStopsSearch() throws Exception {
+		GenerationClient.Response response = generateCall(HUGE_REQUEST).call();
+		assertEquals("timeout", response.getStatus());
+		// Results cut by the budget are not cached
+		assertEquals("generated", generateCall(HUGE_REQUEST).call().getSource());
+	}
+
+	@Test
+	public void coalescedRequestsKeepTheirOwnBudget() throws Exception {
+		GenerationService service = new GenerationService(1, 5, 0);
+		try {
+			// A longer budget extends the search of a short one
+			GenerationService.Submission shortRequest = service.submit(GenerationRequest.parse(
+					LARGE_REQUEST.replace(" 60000", " 20")));
+			GenerationService.Submission longRequest = service.submit(GenerationRequest.parse(
+					LARGE_REQUEST));
+			assertEquals(GenerationService.Source.COALESCED, longRequest.getSource());
+			GenerationResult shortResult = shortRequest.getResult().get(5, TimeUnit.SECONDS);
+			assertEquals(GenerationResult.Status.TIMEOUT, shortResult.getStatus());
+			GenerationResult longResult = longRequest.getResult().get(30, TimeUnit.SECONDS);
+			assertEquals(GenerationResult.Status.COMPLETE, longResult.getStatus());
+			assertTrue(shortResult.size() < longResult.size());
+
+			// A short budget does not wait for the search of a long one
+			GenerationService.Submission hugeRequest = service.submit(GenerationRequest.parse(
+					HUGE_REQUEST.replace(" 200", " 60000")));
+			long startMillis = System.currentTimeMillis();
+			GenerationService.Submission joiningRequest = service.submit(GenerationRequest.parse(
+					HUGE_REQUEST));
+			assertEquals(GenerationService.Source.COALESCED, joiningRequest.getSource());
+			assertEquals(GenerationResult.Status.TIMEOUT,
+					joiningRequest.getResult().get(5, TimeUnit.SECONDS).getStatus());
+			assertTrue(System.currentTimeMillis() - startMillis < 2000);
+			assertFalse(hugeRequest.getResult().isDone());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void smallRequestsAreNotBlockedByLargeOnes() throws Exception {
+		GenerationService service = new GenerationService(1, 5, 0);
+		try {
+			GenerationService.Submission huge = service.submit(GenerationRequest.parse(
+					HUGE_REQUEST.replace(" 200", " 10000")));
+			GenerationService.Submission small = service.submit(GenerationRequest.parse(
+					"5 10 2 7 2 default 1000000 10000"));
+			assertEquals(GenerationResult.Status.COMPLETE,
+					small.getResult().get(5, TimeUnit.SECONDS).getStatus());
+			assertFalse(huge.getResult().isDone());
+		} finally {
+			service.shutdown();
+		}
+	}
+
+	@Test
+	public void invalidCommandsAreAnsweredWithError() throws IOException {
+		Socket socket = new Socket(InetAddress.getLoopbackAddress(), mServer.getPort());
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					socket.getInputStream(), StandardCharsets.UTF_8));
+			Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+			writer.write("GENERATE 5 10 2 7 2 1;XX 10 10\nHELLO\nSTATS\n");
+			writer.flush();
+			assertTrue(reader.readLine().startsWith("ERROR Invalid filter"));
+			assertEquals("ERROR Unknown command", reader.readLine());
+			assertTrue(reader.readLine().startsWith("STATS requests=0 "));
+		} finally {
+			socket.close();
+		}
+	}
+
+	private Callable<GenerationClient.Response> generateCall(final String line) {
+		return new Callable<GenerationClient.Response>() {
+			@Override
+			public GenerationClient.Response call() throws IOException {
+				GenerationClient client = new GenerationClient(mServer.getPort());
+				try {
+					return client.generate(GenerationRequest.parse(line));
+				} finally {
+					client.close();
+				}
+			}
+		};
+	}
+
+	private static List<String> toStrings(List<Siteswap> siteswaps) {
+		List<String> strings = new ArrayList<String>();
+		for (Siteswap siteswap : siteswaps)
+			strings.add(siteswap.toString());
+		return strings;
+	}
+}
@@ -0,0 +1,378 @@
+package siteswaplib;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Front coded list of siteswaps. The generator emits siteswaps in canonical order,
+ * so neighbouring siteswaps share long prefixes. Each entry only stores the length
+ * of the prefix shared with the previous entry and the remaining throws. Every
+ * blockSize entries a complete siteswap is stored and its offset is kept in the
+ * block index. Random access and seeking therefore only have to decode one block.
+ *
+ * Entry layout: one header byte (shared prefix length in the high nibble, suffix
+ * length in the low nibble) followed by the suffix throws packed two per byte.
+ * If one of the lengths or throws does not fit into a nibble, the header byte is
+ * 0xff, both lengths follow as variable length integers and the suffix throws are
+ * stored with one byte each.
+ */
+public class CompressedSiteswapList implements Iterable<Siteswap>, Serializable {
+
+	public static final int DEFAULT_BLOCK_SIZE = 16;
+
+	private static final byte[] MAGIC = {'S', 'W', 'F', 'C'};
+	private static final int VERSION = 1;
+	private static final int ESCAPE = 0xff;
+
+	private int mBlockSize;
+	private int mNumberOfJugglers;
+	private int mSize = 0;
+	private byte[] mData = new byte[64];
+	private int mDataLength = 0;
+	private int[] mBlockOffsets = new int[4];
+	private byte[] mLast = new byte[0];
+
+	public CompressedSiteswapList(int numberOfJugglers, int blockSize) {
+		if (blockSize < 1)
+			throw new IllegalArgumentException("Block size must be positive");
+		mNumberOfJugglers = numberOfJugglers;
+		mBlockSize = blockSize;
+	}
+
+	public CompressedSiteswapList(int numberOfJugglers) {
+		this(numberOfJugglers, DEFAULT_BLOCK_SIZE);
+	}
+
+	public CompressedSiteswapList(Iterable<Siteswap> siteswaps, int numberOfJugglers) {
+		this(numberOfJugglers);
+		for (Siteswap siteswap : siteswaps)
+			add(siteswap);
+	}
+
+	/**
+	 * Appends a siteswap. For good compression and for lowerBound() the
+	 * siteswaps have to be added in ascending order.
+	 * */
+	public void add(Siteswap siteswap) {
+		add(siteswap.toArray());
+	}
+
+	public void add(byte[] siteswap) {
+		int shared = 0;
+		if (mSize % mBlockSize == 0) {
+			if (mSize / mBlockSize == mBlockOffsets.length)
+				mBlockOffsets = Arrays.copyOf(mBlockOffsets, 2 * mBlockOffsets.length);
+			mBlockOffsets[mSize / mBlockSize] = mDataLength;
+		}
+		else {
+			int length = Math.min(siteswap.length, mLast.length);
+			while (shared < length && siteswap[shared] == mLast[shared])
+				shared++;
+		}
+		int suffix = siteswap.length - shared;
+
+		ensureCapacity(mDataLength + suffix + 11);
+		if (shared < 15 && suffix < 15 && isNibblePackable(siteswap, shared)) {
+			mData[mDataLength++] = (byte) ((shared << 4) | suffix);
+			for (int i = shared; i < siteswap.length; i += 2) {
+				int low = siteswap[i];
+				int high = (i + 1 < siteswap.length) ? siteswap[i + 1] : 0;
+				mData[mDataLength++] = (byte) ((high << 4) | low);
+			}
+		}
+		else {
+			mData[mDataLength++] = (byte) ESCAPE;
+			mDataLength = writeVarInt(mData, mDataLength, shared);
+			mDataLength = writeVarInt(mData, mDataLength, suffix);
+			System.arraycopy(siteswap, shared, mData, mDataLength, suffix);
+			mDataLength += suffix;
+		}
+
+		if (mLast.length != siteswap.length)
+			mLast = new byte[siteswap.length];
+		System.arraycopy(siteswap, 0, mLast, 0, siteswap.length);
+		mSize++;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public int getNumberOfJugglers() {
+		return mNumberOfJugglers;
+	}
+
+	public int getBlockSize() {
+		return mBlockSize;
+	}
+
+	public int getNumberOfBlocks() {
+		return (mSize + mBlockSize - 1) / mBlockSize;
+	}
+
+	/**
+	 * Size of the encoded entries in bytes, without header and block index
+	 * */
+	public int getEncodedSize() {
+		return mDataLength;
+	}
+
+	public Siteswap get(int index) {
+		if (index < 0 || index >= mSize)
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+		Decoder decoder = new Decoder(index / mBlockSize);
+		for (int i = index % mBlockSize; i > 0; --i)
+			decoder.next();
+		return decoder.next();
+	}
+
+	/**
+	 * Returns the index of the first siteswap, that is not smaller than the given
+	 * one, or size() if there is none. The block is found by binary search over the
+	 * first siteswaps of all blocks, only this block is decoded.
+	 * */
+	public int lowerBound(Siteswap siteswap) {
+		int low = 0;
+		int high = getNumberOfBlocks() - 1;
+		int block = 0;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			if (new Decoder(mid).next().compareTo(siteswap) < 0) {
+				block = mid;
+				low = mid + 1;
+			}
+			else {
+				high = mid - 1;
+			}
+		}
+
+		Decoder decoder = new Decoder(block);
+		int index = block * mBlockSize;
+		while (index < mSize && decoder.next().compareTo(siteswap) < 0)
+			index++;
+		return index;
+	}
+
+	public boolean contains(Siteswap siteswap) {
+		int index = lowerBound(siteswap);
+		return index < mSize && get(index).equals(siteswap);
+	}
+
+	/**
+	 * Sequential decoding, starting at the given index.
+	 * */
+	public Iterator<Siteswap> iterator(int startIndex) {
+		Decoder decoder = new Decoder(startIndex / mBlockSize);
+		for (int i = startIndex % mBlockSize; i > 0 && decoder.hasNext(); --i)
+			decoder.next();
+		return decoder;
+	}
+
+	@Override
+	public Iterator<Siteswap> iterator() {
+		return iterator(0);
+	}
+
+	/**
+	 * Serialized format: magic, version, block size, number of jugglers, number of
+	 * siteswaps, data length, block index (offset differences) and entries. All
+	 * integers are variable length encoded.
+	 * */
+	public byte[] toByteArray() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(mDataLength + 32);
+		byte[] buffer = new byte[5];
+		out.write(MAGIC, 0, MAGIC.length);
+		out.write(buffer, 0, writeVarInt(buffer, 0, VERSION));
+		out.write(buffer, 0, writeVarInt(buffer, 0, mBlockSize));
+		out.write(buffer, 0, writeVarInt(buffer, 0, mNumberOfJugglers));
+		out.write(buffer, 0, writeVarInt(buffer, 0, mSize));
+		out.write(buffer, 0, writeVarInt(buffer, 0, mDataLength));
+		int previousOffset = 0;
+		for (int i = 0; i < getNumberOfBlocks(); ++i) {
+			out.write(buffer, 0, writeVarInt(buffer, 0, mBlockOffsets[i] - previousOffset));
+			previousOffset = mBlockOffsets[i];
+		}
+		out.write(mData, 0, mDataLength);
+		return out.toByteArray();
+	}
+
+	/**
+	 * Throws an IllegalArgumentException, if the bytes are not a valid list. The
+	 * sizes and offsets are checked against the input and all entries are decoded
+	 * once, so that a corrupt file is rejected here and not by a later access.
+	 * */
+	public static CompressedSiteswapList fromByteArray(byte[] bytes) {
+		for (int i = 0; i < MAGIC.length; ++i) {
+			if (bytes.length <= i || bytes[i] != MAGIC[i])
+				throw new IllegalArgumentException("Not a compressed siteswap list");
+		}
+		int[] position = {MAGIC.length};
+		int version = readVarInt(bytes, position);
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported compressed siteswap list version " + version);
+		int blockSize = readVarInt(bytes, position);
+		int numberOfJugglers = readVarInt(bytes, position);
+		if (blockSize < 1 || numberOfJugglers < 1)
+			throw new IllegalArgumentException("Invalid compressed siteswap list header");
+		CompressedSiteswapList list = new CompressedSiteswapList(numberOfJugglers, blockSize);
+		list.mSize = readVarInt(bytes, position);
+		list.mDataLength = readVarInt(bytes, position);
+		// Every entry has at least its header byte
+		if (list.mDataLength < 0 || list.mDataLength > bytes.length - position[0] ||
+				list.mSize < 0 || list.mSize > list.mDataLength)
+			throw new IllegalArgumentException("Compressed siteswap list is truncated");
+		list.mBlockOffsets = new int[Math.max(list.getNumberOfBlocks(), 1)];
+		int offset = 0;
+		for (int i = 0; i < list.getNumberOfBlocks(); ++i) {
+			int difference = readVarInt(bytes, position);
+			if (difference < 0 || difference > list.mDataLength - offset ||
+					(i == 0) != (difference == 0))
+				throw new IllegalArgumentException("Invalid compressed siteswap list block index");
+			offset += difference;
+			list.mBlockOffsets[i] = offset;
+		}
+		if (list.mDataLength > bytes.length - position[0])
+			throw new IllegalArgumentException("Compressed siteswap list is truncated");
+		list.mData = Arrays.copyOfRange(bytes, position[0], position[0] + list.mDataLength);
+		list.validate();
+		if (list.mSize > 0)
+			list.mLast = list.get(list.mSize - 1).toArray();
+		return list;
+	}
+
+	/**
+	 * Decodes all entries and checks, that the blocks start at their offsets and
+	 * the entries end with the data.
+	 * */
+	private void validate() {
+		try {
+			Decoder decoder = new Decoder(0);
+			for (int i = 0; i < mSize; ++i) {
+				if (i % mBlockSize == 0 && decoder.mPosition[0] != mBlockOffsets[i / mBlockSize])
+					throw new IllegalArgumentException("Invalid compressed siteswap list block index");
+				decoder.next();
+			}
+			if (decoder.mPosition[0] != mDataLength)
+				throw new IllegalArgumentException("Invalid compressed siteswap list data length");
+		} catch (IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Compressed siteswap list is truncated");
+		}
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		byte[] bytes = toByteArray();
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		CompressedSiteswapList list = fromByteArray(bytes);
+		mBlockSize = list.mBlockSize;
+		mNumberOfJugglers = list.mNumberOfJugglers;
+		mSize = list.mSize;
+		mData = list.mData;
+		mDataLength = list.mDataLength;
+		mBlockOffsets = list.mBlockOffsets;
+		mLast = list.mLast;
+	}
+
+	private static boolean isNibblePackable(byte[] siteswap, int start) {
+		for (int i = start; i < siteswap.length; ++i) {
+			if (siteswap[i] < 0 || siteswap[i] > 15)
+				return false;
+		}
+		return true;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > mData.length)
+			mData = Arrays.copyOf(mData, Math.max(capacity, 2 * mData.length));
+	}
+
+	static int writeVarInt(byte[] buffer, int position, int value) {
+		while ((value & ~0x7f) != 0) {
+			buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte) value;
+		return position;
+	}
+
+	static int readVarInt(byte[] buffer, int[] position) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if (position[0] >= buffer.length || shift > 28)
+				throw new IllegalArgumentException("Invalid variable length integer");
+			b = buffer[position[0]++];
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private class Decoder implements Iterator<Siteswap> {
+
+		private int mIndex;
+		private int[] mPosition = new int[1];
+		private byte[] mCurrent = new byte[0];
+
+		Decoder(int block) {
+			mIndex = block * mBlockSize;
+			if (mIndex < mSize)
+				mPosition[0] = mBlockOffsets[block];
+		}
+
+		@Override
+		public boolean hasNext() {
+			return mIndex < mSize;
+		}
+
+		@Override
+		public Siteswap next() {
+			if (!hasNext())
+				throw new NoSuchElementException();
+			int header = mData[mPosition[0]++] & 0xff;
+			if (header == ESCAPE) {
+				int shared = readVarInt(mData, mPosition);
+				int suffix = readVarInt(mData, mPosition);
+				if (shared > mCurrent.length || suffix < 0)
+					throw new IllegalArgumentException("Invalid compressed siteswap entry");
+				if (mCurrent.length != shared + suffix)
+					mCurrent = Arrays.copyOf(mCurrent, shared + suffix);
+				System.arraycopy(mData, mPosition[0], mCurrent, shared, suffix);
+				mPosition[0] += suffix;
+			}
+			else {
+				int shared = header >> 4;
+				int suffix = header & 0x0f;
+				if (shared > mCurrent.length)
+					throw new IllegalArgumentException("Invalid compressed siteswap entry");
+				if (mCurrent.length != shared + suffix)
+					mCurrent = Arrays.copyOf(mCurrent, shared + suffix);
+				for (int i = shared; i < mCurrent.length; i += 2) {
+					int packed = mData[mPosition[0]++];
+					mCurrent[i] = (byte) (packed & 0x0f);
+					if (i + 1 < mCurrent.length)
+						mCurrent[i + 1] = (byte) ((packed >> 4) & 0x0f);
+				}
+			}
+			mIndex++;
+			return new Siteswap(mCurrent, mNumberOfJugglers);
+		}
+
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -18,6 +18,23 @@ public abstract class Filter implements Serializable {
      * condition.
      * */
     public abstract boolean isPartlyFulfilled(Siteswap siteswap, int index);
+
+    /**
+     * Same as isFulfilled, but the interface of the siteswap is already known, as it
+     * is during generation. Filters depending on the interface do not have to
+     * calculate it again.
+     * */
+    public boolean isFulfilled(Siteswap siteswap, Siteswap siteswapInterface) {
+        return isFulfilled(siteswap);
+    }
+
+    /**
+     * Same as isPartlyFulfilled, but with the interface of the throws up to index.
+     * All other positions of the interface are free.
+     * */
+    public boolean isPartlyFulfilled(Siteswap siteswap, Siteswap siteswapInterface, int index) {
+        return isPartlyFulfilled(siteswap, index);
+    }
 	
 	public static void addDefaultFilters(LinkedList<Filter> filterList,
 										 int numberOfJugglers, int minThrow) {
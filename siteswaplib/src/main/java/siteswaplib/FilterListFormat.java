@@ -0,0 +1,222 @@
+package siteswaplib;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Compact, versioned text format for filter lists. Unlike java serialization, the
+ * format does not depend on the implementation of the filter classes, and it is
+ * short enough to be used as key, e.g. for cached results.
+ *
+ * Format of version 1: the version followed by the filters, separated by ';'
+ * e.g. "1;NG:-2:1;NE:3:0;PE:5P"
+ *
+ *   NumberFilter:          N{type G|S|E}:{value}:{threshold}
+ *   PatternFilter:         P{type I|E}:{pattern}
+ *   InterfaceFilter:       F{type I|E}:{pattern}
+ *   LocalPatternFilter:    L{type I|E}:{jugglers}:{local pattern}
+ *   LocalInterfaceFilter:  K{type I|E}:{jugglers}:{local pattern}
+ *
+ * Pattern values are written as 0-9 and a-z for throws up to 35, S for self,
+ * P for pass, ? for do not care, * for free and (n) for any other value.
+ */
+public class FilterListFormat {
+
+	public static final int VERSION = 1;
+
+	private static final char SEPARATOR = ';';
+
+	public static String encode(List<Filter> filterList) {
+		StringBuilder token = new StringBuilder();
+		token.append(VERSION);
+		for (Filter filter : filterList) {
+			token.append(SEPARATOR);
+			encodeFilter(filter, token);
+		}
+		return token.toString();
+	}
+
+	/**
+	 * Throws an IllegalArgumentException, if the token is invalid or of an
+	 * unsupported version.
+	 * */
+	public static LinkedList<Filter> decode(String token) {
+		String[] parts = token.split(String.valueOf(SEPARATOR), -1);
+		int version;
+		try {
+			version = Integer.parseInt(parts[0]);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid filter list: " + token);
+		}
+		if (version != VERSION)
+			throw new IllegalArgumentException("Unsupported filter list version " + version);
+
+		LinkedList<Filter> filterList = new LinkedList<Filter>();
+		for (int i = 1; i < parts.length; ++i)
+			filterList.add(decodeFilter(parts[i]));
+		return filterList;
+	}
+
+	public static String encodeFilter(Filter filter) {
+		StringBuilder token = new StringBuilder();
+		encodeFilter(filter, token);
+		return token.toString();
+	}
+
+	private static void encodeFilter(Filter filter, StringBuilder token) {
+		// The exact class is checked, because the pattern filters inherit from each other
+		if (filter.getClass() == NumberFilter.class) {
+			NumberFilter numberFilter = (NumberFilter) filter;
+			token.append('N');
+			switch (numberFilter.getType()) {
+				case GREATER_EQUAL:
+					token.append('G');
+					break;
+				case SMALLER_EQUAL:
+					token.append('S');
+					break;
+				case EQUAL:
+					token.append('E');
+					break;
+			}
+			token.append(':').append(numberFilter.getFilterValue());
+			token.append(':').append(numberFilter.getThresholdValue());
+			return;
+		}
+
+		PatternFilter patternFilter = (PatternFilter) filter;
+		if (filter.getClass() == PatternFilter.class)
+			token.append('P');
+		else if (filter.getClass() == InterfaceFilter.class)
+			token.append('F');
+		else if (filter.getClass() == LocalPatternFilter.class)
+			token.append('L');
+		else if (filter.getClass() == LocalInterfaceFilter.class)
+			token.append('K');
+		else
+			throw new IllegalArgumentException("Unsupported filter class " + filter.getClass().getName());
+		token.append(patternFilter.getType() == PatternFilter.Type.INCLUDE ? 'I' : 'E');
+		token.append(':');
+
+		if (filter instanceof LocalPatternFilter)
+			token.append(getNumberOfJugglers(((LocalPatternFilter) filter).getGlobalPattern(),
+					patternFilter.getPattern())).append(':');
+		else if (filter instanceof LocalInterfaceFilter)
+			token.append(getNumberOfJugglers(((LocalInterfaceFilter) filter).getGlobalPattern(),
+					patternFilter.getPattern())).append(':');
+
+		Siteswap pattern = patternFilter.getPattern();
+		for (int i = 0; i < pattern.period_length(); ++i)
+			encodePatternValue(pattern.at(i), token);
+	}
+
+	public static Filter decodeFilter(String token) {
+		String[] parts = token.split(":", -1);
+		if (token.length() < 2)
+			throw new IllegalArgumentException("Invalid filter: " + token);
+		char kind = token.charAt(0);
+		char type = token.charAt(1);
+
+		try {
+			switch (kind) {
+				case 'N':
+					if (parts.length != 3 || parts[0].length() != 2)
+						break;
+					NumberFilter.Type numberType;
+					if (type == 'G')
+						numberType = NumberFilter.Type.GREATER_EQUAL;
+					else if (type == 'S')
+						numberType = NumberFilter.Type.SMALLER_EQUAL;
+					else if (type == 'E')
+						numberType = NumberFilter.Type.EQUAL;
+					else
+						break;
+					return new NumberFilter(Integer.parseInt(parts[1]), numberType,
+							Integer.parseInt(parts[2]));
+				case 'P':
+				case 'F':
+				case 'L':
+				case 'K':
+					boolean isLocal = kind == 'L' || kind == 'K';
+					if (parts.length != (isLocal ? 3 : 2) || parts[0].length() != 2 ||
+							(type != 'I' && type != 'E'))
+						break;
+					PatternFilter.Type patternType = (type == 'I') ?
+							PatternFilter.Type.INCLUDE : PatternFilter.Type.EXCLUDE;
+					Siteswap pattern = decodePattern(parts[parts.length - 1], token);
+					if (kind == 'P')
+						return new PatternFilter(pattern, patternType);
+					if (kind == 'F')
+						return new InterfaceFilter(pattern, patternType);
+					int numberOfJugglers = Integer.parseInt(parts[1]);
+					if (numberOfJugglers < 1)
+						break;
+					if (kind == 'L')
+						return new LocalPatternFilter(pattern, patternType, numberOfJugglers);
+					return new LocalInterfaceFilter(pattern, patternType, numberOfJugglers);
+			}
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid filter: " + token);
+		}
+		throw new IllegalArgumentException("Invalid filter: " + token);
+	}
+
+	/**
+	 * The number of jugglers is not stored in the local filters, but follows from
+	 * the length of the global pattern, which is jugglers * (length - 1) + 1. A
+	 * local pattern of length 1 results in the same filter for all numbers of jugglers.
+	 * */
+	private static int getNumberOfJugglers(Siteswap globalPattern, Siteswap localPattern) {
+		if (localPattern.period_length() <= 1)
+			return 1;
+		return (globalPattern.period_length() - 1) / (localPattern.period_length() - 1);
+	}
+
+	private static void encodePatternValue(int value, StringBuilder token) {
+		if (value == Siteswap.SELF)
+			token.append('S');
+		else if (value == Siteswap.PASS)
+			token.append('P');
+		else if (value == Siteswap.DONT_CARE)
+			token.append('?');
+		else if (value == Siteswap.FREE)
+			token.append('*');
+		else if (value >= 0 && value < 36)
+			token.append(Character.forDigit(value, 36));
+		else
+			token.append('(').append(value).append(')');
+	}
+
+	private static Siteswap decodePattern(String patternToken, String token) {
+		byte[] pattern = new byte[patternToken.length()];
+		int length = 0;
+		for (int i = 0; i < patternToken.length(); ++i) {
+			char c = patternToken.charAt(i);
+			int value;
+			if (c == 'S')
+				value = Siteswap.SELF;
+			else if (c == 'P')
+				value = Siteswap.PASS;
+			else if (c == '?')
+				value = Siteswap.DONT_CARE;
+			else if (c == '*')
+				value = Siteswap.FREE;
+			else if (c == '(') {
+				int end = patternToken.indexOf(')', i);
+				if (end < 0)
+					throw new IllegalArgumentException("Invalid filter: " + token);
+				value = Integer.parseInt(patternToken.substring(i + 1, end));
+				i = end;
+			}
+			else {
+				value = Character.digit(c, 36);
+				if (value < 0 || Character.isUpperCase(c))
+					throw new IllegalArgumentException("Invalid filter: " + token);
+			}
+			pattern[length++] = (byte) value;
+		}
+		byte[] trimmed = new byte[length];
+		System.arraycopy(pattern, 0, trimmed, 0, length);
+		return new Siteswap(trimmed);
+	}
+}
@@ -0,0 +1,97 @@
+package siteswaplib;
+
+import java.io.Serializable;
+
+/**
+ * Position of an aborted siteswap search. The prefix contains the throws of the
+ * search path at the moment the search stopped. If isPrefixExplored() is true, the
+ * prefix is a complete siteswap, that was already emitted as result. Otherwise the
+ * subtree below the prefix was not searched yet.
+ *
+ * The checkpoint can be converted to a short string token via toToken(), so that a
+ * search can be continued after a process restart.
+ */
+public class GenerationCheckpoint implements Serializable {
+
+	private int mPeriodLength;
+	private byte mMaxThrow;
+	private byte mMinThrow;
+	private byte mNumberOfObjects;
+	private int mNumberOfJugglers;
+	private byte[] mPrefix;
+	private boolean mIsPrefixExplored;
+
+	public GenerationCheckpoint(int periodLength, int maxThrow, int minThrow, int numberOfObjects,
+								int numberOfJugglers, byte[] prefix, boolean isPrefixExplored) {
+		mPeriodLength = periodLength;
+		mMaxThrow = (byte) maxThrow;
+		mMinThrow = (byte) minThrow;
+		mNumberOfObjects = (byte) numberOfObjects;
+		mNumberOfJugglers = numberOfJugglers;
+		mPrefix = prefix;
+		mIsPrefixExplored = isPrefixExplored;
+	}
+
+	/**
+	 * Returns true, if the checkpoint was created by a generator with the same
+	 * parameters. Filters are not part of the checkpoint and are not compared.
+	 * */
+	public boolean matches(SiteswapGenerator generator) {
+		return mPeriodLength == generator.getPeriodLength() &&
+				mMaxThrow == generator.getMaxThrow() &&
+				mMinThrow == generator.getMinThrow() &&
+				mNumberOfObjects == generator.getNumberOfObjects() &&
+				mNumberOfJugglers == generator.getNumberOfJugglers();
+	}
+
+	public byte[] getPrefix() {
+		return mPrefix;
+	}
+
+	public boolean isPrefixExplored() {
+		return mIsPrefixExplored;
+	}
+
+	/**
+	 * Token format: period,max,min,objects,jugglers:prefix:explored
+	 * e.g. "5,10,2,7,2:975:0"
+	 * */
+	public String toToken() {
+		StringBuilder token = new StringBuilder();
+		token.append(mPeriodLength).append(',').append(mMaxThrow).append(',');
+		token.append(mMinThrow).append(',').append(mNumberOfObjects).append(',');
+		token.append(mNumberOfJugglers).append(':');
+		for (byte value : mPrefix)
+			token.append(Siteswap.intToChar(value));
+		token.append(':').append(mIsPrefixExplored ? '1' : '0');
+		return token.toString();
+	}
+
+	public static GenerationCheckpoint fromToken(String token) {
+		String[] parts = token.split(":", -1);
+		if (parts.length != 3)
+			throw new IllegalArgumentException("Invalid checkpoint token: " + token);
+		String[] parameters = parts[0].split(",");
+		if (parameters.length != 5)
+			throw new IllegalArgumentException("Invalid checkpoint token: " + token);
+		try {
+			byte[] prefix = new byte[parts[1].length()];
+			for (int i = 0; i < prefix.length; ++i) {
+				prefix[i] = (byte) Siteswap.charToInt(parts[1].charAt(i));
+				if (prefix[i] < 0)
+					throw new IllegalArgumentException("Invalid checkpoint token: " + token);
+			}
+			return new GenerationCheckpoint(Integer.parseInt(parameters[0]),
+					Integer.parseInt(parameters[1]), Integer.parseInt(parameters[2]),
+					Integer.parseInt(parameters[3]), Integer.parseInt(parameters[4]),
+					prefix, parts[2].equals("1"));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid checkpoint token: " + token);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return toToken();
+	}
+}
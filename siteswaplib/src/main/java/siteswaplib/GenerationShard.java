@@ -0,0 +1,191 @@
+package siteswaplib;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Part of the search space of a generator (see SiteswapGenerator.createShards()).
+ * The generator emits siteswaps in canonical order, i.e. in ascending order of
+ * their throws. A shard contains the siteswaps, whose first throws are not smaller
+ * than the start prefix and smaller than the end prefix. The start prefix of the
+ * first shard is empty, the end prefix of the last shard is null. Therefore the
+ * shards of a generator contain every siteswap exactly once and the results of
+ * all shards in shard order are the results of the whole search.
+ *
+ * The shard can be converted to a short string token via toToken(), so that it
+ * can be passed to another process or machine.
+ */
+public class GenerationShard implements Serializable {
+
+	private int mPeriodLength;
+	private byte mMaxThrow;
+	private byte mMinThrow;
+	private byte mNumberOfObjects;
+	private int mNumberOfJugglers;
+	private int mIndex;
+	private int mNumberOfShards;
+	private byte[] mStartPrefix;
+	private byte[] mEndPrefix;
+	private double mEstimatedNodes;
+
+	public GenerationShard(int periodLength, int maxThrow, int minThrow, int numberOfObjects,
+						   int numberOfJugglers, int index, int numberOfShards,
+						   byte[] startPrefix, byte[] endPrefix, double estimatedNodes) {
+		mPeriodLength = periodLength;
+		mMaxThrow = (byte) maxThrow;
+		mMinThrow = (byte) minThrow;
+		mNumberOfObjects = (byte) numberOfObjects;
+		mNumberOfJugglers = numberOfJugglers;
+		mIndex = index;
+		mNumberOfShards = numberOfShards;
+		mStartPrefix = startPrefix;
+		mEndPrefix = endPrefix;
+		mEstimatedNodes = estimatedNodes;
+	}
+
+	/**
+	 * Returns true, if the shard was created by a generator with the same
+	 * parameters. Filters are not part of the shard and are not compared. They
+	 * only influence the estimates, which the shard boundaries are based on.
+	 * */
+	public boolean matches(SiteswapGenerator generator) {
+		return mPeriodLength == generator.getPeriodLength() &&
+				mMaxThrow == generator.getMaxThrow() &&
+				mMinThrow == generator.getMinThrow() &&
+				mNumberOfObjects == generator.getNumberOfObjects() &&
+				mNumberOfJugglers == generator.getNumberOfJugglers();
+	}
+
+	public int getIndex() {
+		return mIndex;
+	}
+
+	public int getNumberOfShards() {
+		return mNumberOfShards;
+	}
+
+	public byte[] getStartPrefix() {
+		return mStartPrefix;
+	}
+
+	/**
+	 * null for the last shard
+	 * */
+	public byte[] getEndPrefix() {
+		return mEndPrefix;
+	}
+
+	/**
+	 * Estimated number of search tree nodes of the shard. Not part of the token.
+	 * */
+	public double getEstimatedNodes() {
+		return mEstimatedNodes;
+	}
+
+	/**
+	 * Search position, where the shard starts. The subtree below the start prefix
+	 * belongs to the shard.
+	 * */
+	public GenerationCheckpoint getStartCheckpoint() {
+		return new GenerationCheckpoint(mPeriodLength, mMaxThrow, mMinThrow, mNumberOfObjects,
+				mNumberOfJugglers, mStartPrefix, false);
+	}
+
+	public boolean contains(Siteswap siteswap) {
+		return comparePrefix(siteswap, mStartPrefix) >= 0 &&
+				(mEndPrefix == null || comparePrefix(siteswap, mEndPrefix) < 0);
+	}
+
+	/**
+	 * Compares the first throws of the siteswap with the prefix.
+	 * */
+	static int comparePrefix(Siteswap siteswap, byte[] prefix) {
+		for (int i = 0; i < prefix.length; ++i) {
+			if (siteswap.at(i) != prefix[i])
+				return (siteswap.at(i) < prefix[i]) ? -1 : 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Token format: period,max,min,objects,jugglers:index,shards:start:end
+	 * e.g. "7,10,2,7,2:3,16:96:97". The end prefix of the last shard is empty.
+	 * */
+	public String toToken() {
+		StringBuilder token = new StringBuilder();
+		token.append(mPeriodLength).append(',').append(mMaxThrow).append(',');
+		token.append(mMinThrow).append(',').append(mNumberOfObjects).append(',');
+		token.append(mNumberOfJugglers).append(':');
+		token.append(mIndex).append(',').append(mNumberOfShards).append(':');
+		appendPrefix(token, mStartPrefix);
+		token.append(':');
+		if (mEndPrefix != null)
+			appendPrefix(token, mEndPrefix);
+		return token.toString();
+	}
+
+	public static GenerationShard fromToken(String token) {
+		String[] parts = token.split(":", -1);
+		if (parts.length != 4)
+			throw new IllegalArgumentException("Invalid shard token: " + token);
+		String[] parameters = parts[0].split(",");
+		String[] position = parts[1].split(",");
+		if (parameters.length != 5 || position.length != 2)
+			throw new IllegalArgumentException("Invalid shard token: " + token);
+		try {
+			int index = Integer.parseInt(position[0]);
+			int numberOfShards = Integer.parseInt(position[1]);
+			if (index < 0 || index >= numberOfShards)
+				throw new IllegalArgumentException("Invalid shard token: " + token);
+			byte[] startPrefix = parsePrefix(parts[2], token);
+			byte[] endPrefix = parts[3].isEmpty() ? null : parsePrefix(parts[3], token);
+			return new GenerationShard(Integer.parseInt(parameters[0]),
+					Integer.parseInt(parameters[1]), Integer.parseInt(parameters[2]),
+					Integer.parseInt(parameters[3]), Integer.parseInt(parameters[4]),
+					index, numberOfShards, startPrefix, endPrefix, 0);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid shard token: " + token);
+		}
+	}
+
+	private static void appendPrefix(StringBuilder token, byte[] prefix) {
+		for (byte value : prefix)
+			token.append(Siteswap.intToChar(value));
+	}
+
+	private static byte[] parsePrefix(String str, String token) {
+		byte[] prefix = new byte[str.length()];
+		for (int i = 0; i < prefix.length; ++i) {
+			prefix[i] = (byte) Siteswap.charToInt(str.charAt(i));
+			if (prefix[i] < 0)
+				throw new IllegalArgumentException("Invalid shard token: " + token);
+		}
+		return prefix;
+	}
+
+	/**
+	 * Shards are equal, if they have the same token.
+	 * */
+	@Override
+	public boolean equals(Object obj) {
+		if (!(obj instanceof GenerationShard))
+			return false;
+		GenerationShard other = (GenerationShard) obj;
+		return mPeriodLength == other.mPeriodLength && mMaxThrow == other.mMaxThrow &&
+				mMinThrow == other.mMinThrow && mNumberOfObjects == other.mNumberOfObjects &&
+				mNumberOfJugglers == other.mNumberOfJugglers && mIndex == other.mIndex &&
+				mNumberOfShards == other.mNumberOfShards &&
+				Arrays.equals(mStartPrefix, other.mStartPrefix) &&
+				Arrays.equals(mEndPrefix, other.mEndPrefix);
+	}
+
+	@Override
+	public int hashCode() {
+		return toToken().hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return toToken();
+	}
+}
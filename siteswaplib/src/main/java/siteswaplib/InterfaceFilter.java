@@ -0,0 +1,72 @@
+package siteswaplib;
+
+import java.util.Arrays;
+
+/**
+ * Created by tilman on 29.10.17.
+ */
+
+public class InterfaceFilter extends PatternFilter {
+
+    public InterfaceFilter(Siteswap pattern, Type type) {
+        super(pattern, type);
+    }
+
+    @Override
+    public String toString() {
+        String str;
+
+        if (mType == Type.INCLUDE)
+            str = new String("Include Interface: ");
+        else
+            str = new String("Exclude Interface: ");
+        str += mPattern.toString();
+        return str;
+    }
+
+    @Override
+    public boolean isFulfilled(Siteswap siteswap) {
+
+        return isFulfilled(siteswap, siteswap.toInterface(Siteswap.DONT_CARE));
+    }
+
+    @Override
+    public boolean isFulfilled(Siteswap siteswap, Siteswap siteswapInterface) {
+
+        if (mType == Type.INCLUDE)
+            return siteswapInterface.isPattern(mPattern);
+        return !siteswapInterface.isPattern(mPattern);
+    }
+
+
+    /**
+     * Only the interface positions, on which one of the throws up to index lands,
+     * are known. All other positions are free and do not match any pattern value.
+     * Therefore an exclude filter can already reject the partial siteswap, while an
+     * include filter might still be fulfilled by the remaining throws.
+     */
+    @Override
+    public boolean isPartlyFulfilled(Siteswap siteswap, int index) {
+
+        if (mType == Type.INCLUDE)
+            return true;
+
+        byte[] interfaceArray = new byte[siteswap.period_length()];
+        Arrays.fill(interfaceArray, Siteswap.FREE);
+        Siteswap siteswapInterface = new Siteswap(interfaceArray, siteswap.getNumberOfJugglers());
+        for (int i = 0; i <= index; ++i) {
+            if (siteswap.at(i) < 0)
+                continue;
+            siteswapInterface.set(i + siteswap.at(i), siteswap.at(i));
+        }
+        return isPartlyFulfilled(siteswap, siteswapInterface, index);
+    }
+
+    @Override
+    public boolean isPartlyFulfilled(Siteswap siteswap, Siteswap siteswapInterface, int index) {
+
+        if (mType == Type.INCLUDE)
+            return true;
+        return !siteswapInterface.isPattern(mPattern);
+    }
+}
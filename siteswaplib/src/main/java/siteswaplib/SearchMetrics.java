@@ -0,0 +1,191 @@
+package siteswaplib;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * SearchRecorder, that counts all events of a search. snapshot() returns a copy,
+ * that can be read while the search goes on; it may be slightly inconsistent, if
+ * it is taken during a search. toJson() exports the counters.
+ */
+public class SearchMetrics implements SearchRecorder, Serializable {
+
+	private long[] mNodes = new long[0];
+	private long[] mSumBoundPrunes = new long[0];
+	private long[] mCollisionPrunes = new long[0];
+	private long mUniqueRepresentationRejects = 0;
+	private String[] mFilterNames = new String[0];
+	private long[] mPartialFilterRejects = new long[0];
+	private long[] mFilterRejects = new long[0];
+	private long mFilterNanos = 0;
+	private long mTotalNanos = 0;
+
+	@Override
+	public void onSearchStarted(SiteswapGenerator generator) {
+		int depths = generator.getPeriodLength() + 1;
+		mNodes = new long[depths];
+		mSumBoundPrunes = new long[depths];
+		mCollisionPrunes = new long[depths];
+		mUniqueRepresentationRejects = 0;
+
+		List<Filter> filterList = generator.getFilterList();
+		int numberOfFilters = (filterList == null) ? 0 : filterList.size();
+		mFilterNames = new String[numberOfFilters];
+		for (int i = 0; i < numberOfFilters; ++i)
+			mFilterNames[i] = filterList.get(i).toString();
+		mPartialFilterRejects = new long[numberOfFilters];
+		mFilterRejects = new long[numberOfFilters];
+		mFilterNanos = 0;
+		mTotalNanos = 0;
+	}
+
+	@Override
+	public void onNode(Siteswap siteswap, int depth) {
+		mNodes[depth]++;
+	}
+
+	@Override
+	public void onSumBoundPrune(int depth, int numberOfValues) {
+		mSumBoundPrunes[depth] += numberOfValues;
+	}
+
+	@Override
+	public void onCollisionPrune(int depth) {
+		mCollisionPrunes[depth]++;
+	}
+
+	@Override
+	public void onUniqueRepresentationReject() {
+		mUniqueRepresentationRejects++;
+	}
+
+	@Override
+	public void onPartialFilterReject(int filterIndex, int depth) {
+		mPartialFilterRejects[filterIndex]++;
+	}
+
+	@Override
+	public void onFilterReject(int filterIndex) {
+		mFilterRejects[filterIndex]++;
+	}
+
+	@Override
+	public void onFilterTime(long nanos) {
+		mFilterNanos += nanos;
+	}
+
+	@Override
+	public void onSearchFinished(long nanos) {
+		mTotalNanos = nanos;
+	}
+
+	public SearchMetrics snapshot() {
+		SearchMetrics snapshot = new SearchMetrics();
+		snapshot.mNodes = mNodes.clone();
+		snapshot.mSumBoundPrunes = mSumBoundPrunes.clone();
+		snapshot.mCollisionPrunes = mCollisionPrunes.clone();
+		snapshot.mUniqueRepresentationRejects = mUniqueRepresentationRejects;
+		snapshot.mFilterNames = mFilterNames.clone();
+		snapshot.mPartialFilterRejects = mPartialFilterRejects.clone();
+		snapshot.mFilterRejects = mFilterRejects.clone();
+		snapshot.mFilterNanos = mFilterNanos;
+		snapshot.mTotalNanos = mTotalNanos;
+		return snapshot;
+	}
+
+	/**
+	 * Index is the depth, i.e. the number of throws already set
+	 * */
+	public long[] getNodesPerDepth() {
+		return mNodes.clone();
+	}
+
+	public long getNumberOfNodes() {
+		return sum(mNodes);
+	}
+
+	public long[] getSumBoundPrunesPerDepth() {
+		return mSumBoundPrunes.clone();
+	}
+
+	public long[] getCollisionPrunesPerDepth() {
+		return mCollisionPrunes.clone();
+	}
+
+	public long getUniqueRepresentationRejects() {
+		return mUniqueRepresentationRejects;
+	}
+
+	public String[] getFilterNames() {
+		return mFilterNames.clone();
+	}
+
+	public long[] getPartialFilterRejects() {
+		return mPartialFilterRejects.clone();
+	}
+
+	public long[] getFilterRejects() {
+		return mFilterRejects.clone();
+	}
+
+	public long getFilterNanos() {
+		return mFilterNanos;
+	}
+
+	/**
+	 * Time of the search without the time spent in filters. Only available,
+	 * after the search has finished.
+	 * */
+	public long getSearchNanos() {
+		return Math.max(0, mTotalNanos - mFilterNanos);
+	}
+
+	public long getTotalNanos() {
+		return mTotalNanos;
+	}
+
+	public String toJson() {
+		StringBuilder json = new StringBuilder();
+		json.append("{\"nodes\":");
+		appendArray(json, mNodes);
+		json.append(",\"sumBoundPrunes\":");
+		appendArray(json, mSumBoundPrunes);
+		json.append(",\"collisionPrunes\":");
+		appendArray(json, mCollisionPrunes);
+		json.append(",\"uniqueRepresentationRejects\":").append(mUniqueRepresentationRejects);
+		json.append(",\"filters\":[");
+		for (int i = 0; i < mFilterNames.length; ++i) {
+			if (i != 0)
+				json.append(',');
+			json.append("{\"name\":\"").append(mFilterNames[i].replace("\\", "\\\\").replace("\"", "\\\""));
+			json.append("\",\"partialRejects\":").append(mPartialFilterRejects[i]);
+			json.append(",\"rejects\":").append(mFilterRejects[i]).append('}');
+		}
+		json.append("],\"filterNanos\":").append(mFilterNanos);
+		json.append(",\"searchNanos\":").append(getSearchNanos());
+		json.append(",\"totalNanos\":").append(mTotalNanos).append('}');
+		return json.toString();
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+
+	private static long sum(long[] values) {
+		long sum = 0;
+		for (long value : values)
+			sum += value;
+		return sum;
+	}
+
+	private static void appendArray(StringBuilder json, long[] values) {
+		json.append('[');
+		for (int i = 0; i < values.length; ++i) {
+			if (i != 0)
+				json.append(',');
+			json.append(values[i]);
+		}
+		json.append(']');
+	}
+}
@@ -0,0 +1,178 @@
+package siteswaplib;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SearchRecorder, that aggregates nodes and time by the first throws of the
+ * search path. Nodes deeper than prefixLength are counted for their prefix of
+ * length prefixLength. The time between two events is counted for the prefix of
+ * the earlier event, so the profiler adds a System.nanoTime() call per node and
+ * should only be used to find the expensive parts of a search.
+ *
+ * writeCollapsedStacks() writes the result in the collapsed stack format, one
+ * line per stack ("search;9;7;5 1234"), which can be rendered by flame graph tools.
+ * Each throw of the prefix is one frame. Rejects (for nodes) and time (for nanos)
+ * of the filters are written as child frames of the prefix.
+ */
+public class SearchProfiler implements SearchRecorder {
+
+	public enum Metric {NODES, NANOS}
+
+	private static final String ROOT_FRAME = "search";
+	private static final String FILTERS_FRAME = "filters";
+
+	private static class Frame {
+		long nodes;
+		long nanos;
+		long filterNanos;
+		long[] filterRejects;
+
+		Frame(int numberOfFilters) {
+			filterRejects = new long[numberOfFilters];
+		}
+	}
+
+	private final int mPrefixLength;
+	private Map<String, Frame> mFrames = new HashMap<String, Frame>();
+	private String[] mFilterNames = new String[0];
+	private Frame mCurrentFrame = null;
+	private long mLastNanos;
+	private char[] mPrefix;
+
+	public SearchProfiler(int prefixLength) {
+		mPrefixLength = prefixLength;
+		mPrefix = new char[2 * prefixLength];
+	}
+
+	@Override
+	public void onSearchStarted(SiteswapGenerator generator) {
+		mFrames = new HashMap<String, Frame>();
+		List<Filter> filterList = generator.getFilterList();
+		int numberOfFilters = (filterList == null) ? 0 : filterList.size();
+		mFilterNames = new String[numberOfFilters];
+		for (int i = 0; i < numberOfFilters; ++i)
+			mFilterNames[i] = filterList.get(i).toString();
+		mCurrentFrame = getFrame("");
+		mLastNanos = System.nanoTime();
+	}
+
+	@Override
+	public void onNode(Siteswap siteswap, int depth) {
+		long nanos = System.nanoTime();
+		mCurrentFrame.nanos += nanos - mLastNanos;
+		mLastNanos = nanos;
+
+		// Deeper nodes stay in the frame of their prefix, which was visited before
+		if (depth <= mPrefixLength) {
+			int length = 0;
+			for (int i = 0; i < depth; ++i) {
+				if (i != 0)
+					mPrefix[length++] = ';';
+				mPrefix[length++] = Siteswap.intToChar(siteswap.at(i));
+			}
+			mCurrentFrame = getFrame(new String(mPrefix, 0, length));
+		}
+		mCurrentFrame.nodes++;
+	}
+
+	@Override
+	public void onSumBoundPrune(int depth, int numberOfValues) {
+	}
+
+	@Override
+	public void onCollisionPrune(int depth) {
+	}
+
+	@Override
+	public void onUniqueRepresentationReject() {
+	}
+
+	@Override
+	public void onPartialFilterReject(int filterIndex, int depth) {
+		mCurrentFrame.filterRejects[filterIndex]++;
+	}
+
+	@Override
+	public void onFilterReject(int filterIndex) {
+		mCurrentFrame.filterRejects[filterIndex]++;
+	}
+
+	@Override
+	public void onFilterTime(long nanos) {
+		mCurrentFrame.filterNanos += nanos;
+	}
+
+	@Override
+	public void onSearchFinished(long nanos) {
+		long now = System.nanoTime();
+		mCurrentFrame.nanos += now - mLastNanos;
+		mLastNanos = now;
+	}
+
+	public int getPrefixLength() {
+		return mPrefixLength;
+	}
+
+	/**
+	 * Writes one line per prefix (and filter) in lexicographic order of the stacks.
+	 * The value of a prefix frame is its own value without the filter frames. Lines
+	 * with value 0 are omitted.
+	 * */
+	public void writeCollapsedStacks(Appendable out, Metric metric) throws IOException {
+		TreeMap<String, Frame> frames = new TreeMap<String, Frame>(mFrames);
+		for (Map.Entry<String, Frame> entry : frames.entrySet()) {
+			String stack = entry.getKey().isEmpty() ? ROOT_FRAME : ROOT_FRAME + ";" + entry.getKey();
+			Frame frame = entry.getValue();
+
+			if (metric == Metric.NODES) {
+				long rejects = 0;
+				for (int i = 0; i < mFilterNames.length; ++i) {
+					rejects += frame.filterRejects[i];
+					writeLine(out, stack + ";" + FILTERS_FRAME + ";" + frameName(mFilterNames[i]),
+							frame.filterRejects[i]);
+				}
+				writeLine(out, stack, frame.nodes - rejects);
+			}
+			else {
+				writeLine(out, stack + ";" + FILTERS_FRAME, frame.filterNanos);
+				writeLine(out, stack, frame.nanos - frame.filterNanos);
+			}
+		}
+	}
+
+	public String toCollapsedStacks(Metric metric) {
+		StringBuilder out = new StringBuilder();
+		try {
+			writeCollapsedStacks(out, metric);
+		} catch (IOException e) {
+			// Not thrown by StringBuilder
+		}
+		return out.toString();
+	}
+
+	private Frame getFrame(String prefix) {
+		Frame frame = mFrames.get(prefix);
+		if (frame == null) {
+			frame = new Frame(mFilterNames.length);
+			mFrames.put(prefix, frame);
+		}
+		return frame;
+	}
+
+	private static void writeLine(Appendable out, String stack, long value) throws IOException {
+		if (value <= 0)
+			return;
+		out.append(stack).append(' ').append(String.valueOf(value)).append('\n');
+	}
+
+	/**
+	 * ';' separates frames and the value is separated by the last space
+	 * */
+	private static String frameName(String name) {
+		return name.replace(';', ',');
+	}
+}
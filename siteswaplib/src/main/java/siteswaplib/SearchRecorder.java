@@ -0,0 +1,49 @@
+package siteswaplib;
+
+/**
+ * Receives events of the backtracking search of a SiteswapGenerator. Without a
+ * recorder, the generator only pays a null check per event, so a recorder can be
+ * attached, whenever a search should be analysed. All methods are called on the
+ * generating thread. Depth is the index of the throw, that is set next.
+ */
+public interface SearchRecorder {
+
+	void onSearchStarted(SiteswapGenerator generator);
+
+	/**
+	 * The first depth throws of the siteswap are the path to the node. The
+	 * siteswap is changed by the search afterwards and must not be kept.
+	 * */
+	void onNode(Siteswap siteswap, int depth);
+
+	/**
+	 * The sum bounds excluded numberOfValues throws, that would be allowed by the
+	 * min throw and the unique representation.
+	 * */
+	void onSumBoundPrune(int depth, int numberOfValues);
+
+	/**
+	 * A throw was not tried, because another throw lands at the same time.
+	 * */
+	void onCollisionPrune(int depth);
+
+	/**
+	 * A complete siteswap was rejected, because it is not the unique representation.
+	 * */
+	void onUniqueRepresentationReject();
+
+	/**
+	 * The filter with the given index in the filter list of the generator rejected
+	 * a partly generated siteswap.
+	 * */
+	void onPartialFilterReject(int filterIndex, int depth);
+
+	void onFilterReject(int filterIndex);
+
+	/**
+	 * Time spent in one evaluation of the filter list
+	 * */
+	void onFilterTime(long nanos);
+
+	void onSearchFinished(long nanos);
+}
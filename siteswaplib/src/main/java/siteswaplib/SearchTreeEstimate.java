@@ -0,0 +1,74 @@
+package siteswaplib;
+
+/**
+ * Result of SiteswapGenerator.estimateSearchTree(). All values are expectations
+ * for a complete search without limit of results or time.
+ */
+public class SearchTreeEstimate {
+
+	// The estimate has a high variance for large trees, so suggested timeouts
+	// are chosen this much longer than the expected time
+	public static final double TIMEOUT_SAFETY_FACTOR = 3;
+	// Below this expected time, the overhead of a parallel search is not worth it
+	public static final double PARALLEL_THRESHOLD_SECONDS = 0.5;
+
+	private double mNodes;
+	private double mResults;
+	private double mSeconds;
+	private int mNumberOfProbes;
+
+	public SearchTreeEstimate(double nodes, double results, double seconds, int numberOfProbes) {
+		mNodes = nodes;
+		mResults = results;
+		mSeconds = seconds;
+		mNumberOfProbes = numberOfProbes;
+	}
+
+	public double getNodes() {
+		return mNodes;
+	}
+
+	public double getResults() {
+		return mResults;
+	}
+
+	/**
+	 * Wall time on this machine, based on the time per node of the probes
+	 * */
+	public double getSeconds() {
+		return mSeconds;
+	}
+
+	public int getNumberOfProbes() {
+		return mNumberOfProbes;
+	}
+
+	/**
+	 * Expected wall time until maxResults siteswaps are found or the search tree
+	 * is exhausted. Results are assumed to be spread evenly over the tree.
+	 * */
+	public double getSeconds(int maxResults) {
+		if (mResults <= maxResults)
+			return mSeconds;
+		return mSeconds * maxResults / mResults;
+	}
+
+	public int getSuggestedTimeoutSeconds(int maxResults) {
+		double seconds = Math.ceil(getSeconds(maxResults) * TIMEOUT_SAFETY_FACTOR);
+		if (seconds >= Integer.MAX_VALUE)
+			return Integer.MAX_VALUE;
+		return Math.max(1, (int) seconds);
+	}
+
+	/**
+	 * Returns false, if the search will probably be stopped by the timeout
+	 * before maxResults siteswaps are found or the tree is exhausted.
+	 * */
+	public boolean isFeasible(int maxResults, int timeoutSeconds) {
+		return getSeconds(maxResults) <= timeoutSeconds;
+	}
+
+	public boolean isParallelSearchRecommended(int maxResults) {
+		return getSeconds(maxResults) > PARALLEL_THRESHOLD_SECONDS;
+	}
+}
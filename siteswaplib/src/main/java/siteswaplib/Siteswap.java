@@ -86,7 +86,8 @@ public class Siteswap implements Comparable<Siteswap>, Iterable<Byte>, Serializa
 	}
 	
 	public boolean is_in_range(byte min, byte max) {
-		for (Byte value : mData) {
+		for (int i = 0; i < period_length(); ++i) {
+			byte value = mData.at(i);
 			if(value < min || value > max)
 				return false;
 		}
@@ -95,8 +96,8 @@ public class Siteswap implements Comparable<Siteswap>, Iterable<Byte>, Serializa
 	
 	public int countValue(byte value) {
 		int counter = 0;
-		for (byte i : mData) {
-			if(isPatternSingleValue(value, i))
+		for (int i = 0; i < period_length(); ++i) {
+			if(isPatternSingleValue(value, mData.at(i)))
 				counter++;
 		}
 		return counter;
@@ -213,12 +214,18 @@ public class Siteswap implements Comparable<Siteswap>, Iterable<Byte>, Serializa
 	}
 
 	public Siteswap[] calculateLocalGetins() {
+		return calculateLocalGetins(calculateGetin());
+	}
+
+	/**
+	 * Same as calculateLocalGetins(), but with an already calculated global getin
+	 * */
+	public Siteswap[] calculateLocalGetins(Siteswap globalGetin) {
 
 		Siteswap siteswapInterface = toInterface(Siteswap.FREE, period_length() + getMaxThrow(),
 				period_length() + getMaxThrow());
 		Siteswap[] localGetins = new Siteswap[getNumberOfJugglers()];
 		int[] localGetinIndices = new int[getNumberOfJugglers()];
-		Siteswap globalGetin = calculateGetin();
 
 		for (int i = 0; i < globalGetin.period_length(); ++i) {
 			int juggler = (i + getNumberOfJugglers() -
@@ -254,9 +261,15 @@ public class Siteswap implements Comparable<Siteswap>, Iterable<Byte>, Serializa
 
 
 	public Siteswap[] calculateLocalGetouts() {
+		return calculateLocalGetouts(calculateGetout());
+	}
+
+	/**
+	 * Same as calculateLocalGetouts(), but with an already calculated global getout
+	 * */
+	public Siteswap[] calculateLocalGetouts(Siteswap globalGetout) {
 
 		Siteswap[] localGetouts = new Siteswap[getNumberOfJugglers()];
-		Siteswap globalGetout = calculateGetout();
 
 		for(int i = 0; i < localGetouts.length; ++i) {
 			int startPos = i - period_length() % getNumberOfJugglers();
@@ -372,11 +385,11 @@ public class Siteswap implements Comparable<Siteswap>, Iterable<Byte>, Serializa
 
 	@Override
 	public String toString() {
-		String str = new String();
-		for (byte value : mData) {
-			str += Character.toString(intToChar(value));
+		char[] str = new char[period_length()];
+		for (int i = 0; i < str.length; ++i) {
+			str[i] = intToChar(mData.at(i));
 		}
-		return str;
+		return new String(str);
 	}
 
 	public Siteswap toPattern() {
@@ -0,0 +1,130 @@
+package siteswaplib;
+
+import java.util.Vector;
+
+/**
+ * All derived properties of a siteswap, that are shown to the user. The properties
+ * are calculated together on the first access, so that intermediate results like
+ * the getin are only calculated once. Analysing is thread safe and may be done in
+ * the background by calling analyze().
+ */
+public class SiteswapAnalysis {
+
+	private final Siteswap mSiteswap;
+	private volatile boolean mIsAnalyzed = false;
+
+	private String mSiteswapString;
+	private Siteswap mInterface;
+	private Siteswap mInterfacePattern;
+	private int mNumberOfObjects;
+	private boolean mIsValid;
+	private Siteswap mGetin;
+	private Siteswap mGetout;
+	private Vector<String> mLocalSiteswapStrings;
+	private Siteswap[] mLocalGetins;
+	private Siteswap[] mLocalGetouts;
+
+	public SiteswapAnalysis(Siteswap siteswap) {
+		mSiteswap = new Siteswap(siteswap);
+	}
+
+	/**
+	 * Creates the (not yet analysed) analyses of all rotations of the siteswap.
+	 * The element at index i belongs to the siteswap rotated left by i positions.
+	 * A siteswap of period length 0 has one rotation.
+	 * */
+	public static SiteswapAnalysis[] createRotations(Siteswap siteswap) {
+		int periodLength = siteswap.period_length();
+		SiteswapAnalysis[] rotations = new SiteswapAnalysis[Math.max(periodLength, 1)];
+		Siteswap rotation = new Siteswap(siteswap);
+		for (int i = 0; i < rotations.length; ++i) {
+			rotations[i] = new SiteswapAnalysis(rotation);
+			if (periodLength > 0)
+				rotation.rotateLeft(1);
+		}
+		return rotations;
+	}
+
+	public synchronized void analyze() {
+		if (mIsAnalyzed)
+			return;
+
+		mSiteswapString = mSiteswap.toString();
+		mInterface = mSiteswap.toInterface();
+		mInterfacePattern = mInterface.toPattern();
+		mNumberOfObjects = mSiteswap.getNumberOfObjects();
+		mIsValid = mSiteswap.isValid();
+		mGetin = mSiteswap.calculateGetin();
+		mGetout = mSiteswap.calculateGetout();
+		mLocalSiteswapStrings = mSiteswap.toLocalString();
+		mLocalGetins = mSiteswap.calculateLocalGetins(mGetin);
+		mLocalGetouts = mSiteswap.calculateLocalGetouts(mGetout);
+		mIsAnalyzed = true;
+	}
+
+	public boolean isAnalyzed() {
+		return mIsAnalyzed;
+	}
+
+	public Siteswap getSiteswap() {
+		return mSiteswap;
+	}
+
+	public String getSiteswapString() {
+		analyze();
+		return mSiteswapString;
+	}
+
+	public Siteswap getInterface() {
+		analyze();
+		return mInterface;
+	}
+
+	public Siteswap getInterfacePattern() {
+		analyze();
+		return mInterfacePattern;
+	}
+
+	public int getNumberOfObjects() {
+		analyze();
+		return mNumberOfObjects;
+	}
+
+	public int getPeriodLength() {
+		return mSiteswap.period_length();
+	}
+
+	public int getNumberOfJugglers() {
+		return mSiteswap.getNumberOfJugglers();
+	}
+
+	public boolean isValid() {
+		analyze();
+		return mIsValid;
+	}
+
+	public Siteswap getGetin() {
+		analyze();
+		return mGetin;
+	}
+
+	public Siteswap getGetout() {
+		analyze();
+		return mGetout;
+	}
+
+	public Vector<String> getLocalSiteswapStrings() {
+		analyze();
+		return mLocalSiteswapStrings;
+	}
+
+	public Siteswap[] getLocalGetins() {
+		analyze();
+		return mLocalGetins;
+	}
+
+	public Siteswap[] getLocalGetouts() {
+		analyze();
+		return mLocalGetouts;
+	}
+}
@@ -0,0 +1,449 @@
+package siteswaplib;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Precomputed catalog of siteswaps with secondary indexes, so that filter lists can
+ * be answered without running the generator again.
+ *
+ * The siteswaps are stored front coded (see CompressedSiteswapList). For every throw
+ * value, pass and self, the catalog keeps posting lists of the siteswaps containing
+ * it exactly n times. Additionally there is an inverted index over the cyclic
+ * n-grams of each siteswap and of its interface, both with the exact throw values
+ * and with throws reduced to pass/self. A query intersects the posting lists of all
+ * filters, that can be answered by an index, and only checks the remaining
+ * candidates with the filters themselves.
+ */
+public class SiteswapCatalog {
+
+	public static final int DEFAULT_NGRAM_LENGTH = 3;
+
+	private static final byte[] MAGIC = {'S', 'W', 'C', 'T'};
+	private static final int VERSION = 1;
+	private static final int MAX_NGRAM_LENGTH = 5;
+
+	private CompressedSiteswapList mSiteswaps;
+	private int mNgramLength;
+	// value -> posting lists indexed by the number of occurrences of the value
+	private TreeMap<Integer, int[][]> mValueCountIndex = new TreeMap<Integer, int[][]>();
+	private TreeMap<Integer, int[]> mSiteswapNgramIndex = new TreeMap<Integer, int[]>();
+	private TreeMap<Integer, int[]> mInterfaceNgramIndex = new TreeMap<Integer, int[]>();
+
+	public SiteswapCatalog(Iterable<Siteswap> siteswaps, int numberOfJugglers, int ngramLength) {
+		if (ngramLength < 1 || ngramLength > MAX_NGRAM_LENGTH)
+			throw new IllegalArgumentException("n-gram length must be between 1 and " + MAX_NGRAM_LENGTH);
+		mNgramLength = ngramLength;
+		mSiteswaps = new CompressedSiteswapList(numberOfJugglers);
+
+		TreeMap<Integer, ArrayList<IntList>> valueCounts = new TreeMap<Integer, ArrayList<IntList>>();
+		TreeMap<Integer, IntList> siteswapNgrams = new TreeMap<Integer, IntList>();
+		TreeMap<Integer, IntList> interfaceNgrams = new TreeMap<Integer, IntList>();
+
+		for (Siteswap siteswap : siteswaps) {
+			int id = mSiteswaps.size();
+			mSiteswaps.add(siteswap);
+
+			TreeMap<Integer, Integer> counts = new TreeMap<Integer, Integer>();
+			for (int i = 0; i < siteswap.period_length(); ++i) {
+				increment(counts, siteswap.at(i));
+				if (numberOfJugglers > 1)
+					increment(counts, toPassSelf(siteswap.at(i)));
+			}
+			for (Map.Entry<Integer, Integer> count : counts.entrySet()) {
+				ArrayList<IntList> postings = valueCounts.get(count.getKey());
+				if (postings == null) {
+					postings = new ArrayList<IntList>();
+					valueCounts.put(count.getKey(), postings);
+				}
+				while (postings.size() <= count.getValue())
+					postings.add(new IntList());
+				postings.get(count.getValue()).add(id);
+			}
+
+			addNgrams(siteswapNgrams, siteswap, id);
+			addNgrams(interfaceNgrams, siteswap.toInterface(Siteswap.DONT_CARE), id);
+		}
+
+		for (Map.Entry<Integer, ArrayList<IntList>> entry : valueCounts.entrySet()) {
+			ArrayList<IntList> postings = entry.getValue();
+			// Siteswaps without the value are not in any of the lists
+			BitSet containing = new BitSet(mSiteswaps.size());
+			for (IntList posting : postings) {
+				for (int i = 0; i < posting.mSize; ++i)
+					containing.set(posting.mData[i]);
+			}
+			IntList zero = new IntList();
+			for (int id = containing.nextClearBit(0); id < mSiteswaps.size(); id = containing.nextClearBit(id + 1))
+				zero.add(id);
+			int[][] lists = new int[postings.size()][];
+			lists[0] = zero.toArray();
+			for (int i = 1; i < lists.length; ++i)
+				lists[i] = postings.get(i).toArray();
+			mValueCountIndex.put(entry.getKey(), lists);
+		}
+		for (Map.Entry<Integer, IntList> entry : siteswapNgrams.entrySet())
+			mSiteswapNgramIndex.put(entry.getKey(), entry.getValue().toArray());
+		for (Map.Entry<Integer, IntList> entry : interfaceNgrams.entrySet())
+			mInterfaceNgramIndex.put(entry.getKey(), entry.getValue().toArray());
+	}
+
+	public SiteswapCatalog(Iterable<Siteswap> siteswaps, int numberOfJugglers) {
+		this(siteswaps, numberOfJugglers, DEFAULT_NGRAM_LENGTH);
+	}
+
+	private SiteswapCatalog() {
+	}
+
+	public int size() {
+		return mSiteswaps.size();
+	}
+
+	public int getNumberOfJugglers() {
+		return mSiteswaps.getNumberOfJugglers();
+	}
+
+	public Siteswap get(int id) {
+		return mSiteswaps.get(id);
+	}
+
+	/**
+	 * Returns all siteswaps of the catalog, that fulfill every filter of the list.
+	 * */
+	public LinkedList<Siteswap> query(List<Filter> filterList) {
+		LinkedList<Siteswap> result = new LinkedList<Siteswap>();
+		BitSet candidates = findCandidates(filterList);
+
+		Iterator<Siteswap> it = null;
+		int position = 0; // index of the siteswap returned by the next call of it.next()
+		int blockSize = mSiteswaps.getBlockSize();
+		for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+			// Decode sequentially within a block, seek to other blocks
+			if (it == null || id / blockSize != position / blockSize) {
+				it = mSiteswaps.iterator(id);
+				position = id;
+			}
+			while (position < id) {
+				it.next();
+				position++;
+			}
+			Siteswap siteswap = it.next();
+			position++;
+			if (matchesFilters(siteswap, filterList))
+				result.add(siteswap);
+		}
+		return result;
+	}
+
+	/**
+	 * Intersection of the posting lists of all filters, that can be answered by
+	 * an index. Filters without index support do not restrict the candidates.
+	 * */
+	public BitSet findCandidates(List<Filter> filterList) {
+		BitSet candidates = new BitSet(mSiteswaps.size());
+		candidates.set(0, mSiteswaps.size());
+		if (filterList == null)
+			return candidates;
+		for (Filter filter : filterList) {
+			BitSet postings = null;
+			if (filter instanceof NumberFilter)
+				postings = findCandidates((NumberFilter) filter);
+			else if (filter instanceof PatternFilter)
+				postings = findCandidates((PatternFilter) filter);
+			if (postings != null)
+				candidates.and(postings);
+			if (candidates.isEmpty())
+				break;
+		}
+		return candidates;
+	}
+
+	private BitSet findCandidates(NumberFilter filter) {
+		int value = filter.getFilterValue();
+		if (value == Siteswap.PASS || value == Siteswap.SELF) {
+			if (getNumberOfJugglers() <= 1)
+				return null;
+		}
+		else if (value < 0) {
+			return null;
+		}
+		int[][] postings = mValueCountIndex.get(value);
+		BitSet result = new BitSet(mSiteswaps.size());
+		if (postings == null) {
+			// No siteswap contains the value
+			if (isCountMatch(filter, 0))
+				result.set(0, mSiteswaps.size());
+			return result;
+		}
+		for (int count = 0; count < postings.length; ++count) {
+			if (isCountMatch(filter, count)) {
+				for (int id : postings[count])
+					result.set(id);
+			}
+		}
+		return result;
+	}
+
+	private static boolean isCountMatch(NumberFilter filter, int count) {
+		switch (filter.getType()) {
+			case GREATER_EQUAL:
+				return count >= filter.getThresholdValue();
+			case SMALLER_EQUAL:
+				return count <= filter.getThresholdValue();
+			default:
+				return count == filter.getThresholdValue();
+		}
+	}
+
+	private BitSet findCandidates(PatternFilter filter) {
+		if (filter.getType() != PatternFilter.Type.INCLUDE)
+			return null;
+
+		Siteswap pattern = filter.getPattern();
+		if (filter instanceof LocalPatternFilter)
+			pattern = ((LocalPatternFilter) filter).getGlobalPattern();
+		else if (filter instanceof LocalInterfaceFilter)
+			pattern = ((LocalInterfaceFilter) filter).getGlobalPattern();
+		TreeMap<Integer, int[]> index = (filter instanceof InterfaceFilter) ?
+				mInterfaceNgramIndex : mSiteswapNgramIndex;
+
+		BitSet result = null;
+		for (int start = 0; start + mNgramLength <= pattern.period_length(); ++start) {
+			int key = patternNgramKey(pattern, start);
+			if (key < 0)
+				continue;
+			BitSet postings = new BitSet(mSiteswaps.size());
+			int[] ids = index.get(key);
+			if (ids != null) {
+				for (int id : ids)
+					postings.set(id);
+			}
+			if (result == null)
+				result = postings;
+			else
+				result.and(postings);
+		}
+		return result;
+	}
+
+	/**
+	 * Key of the pattern window, or -1 if it contains positions, that are not
+	 * covered by the index (do not care, or pass/self for a single juggler).
+	 * */
+	private int patternNgramKey(Siteswap pattern, int start) {
+		boolean isExact = true;
+		for (int i = start; i < start + mNgramLength; ++i) {
+			byte value = pattern.at(i);
+			if (value == Siteswap.PASS || value == Siteswap.SELF) {
+				if (getNumberOfJugglers() <= 1)
+					return -1;
+				isExact = false;
+			}
+			else if (value < 0) {
+				return -1;
+			}
+		}
+		int key = 0;
+		for (int i = start; i < start + mNgramLength; ++i)
+			key = appendToKey(key, isExact ? pattern.at(i) : toPassSelf(pattern.at(i)));
+		return key;
+	}
+
+	private void addNgrams(TreeMap<Integer, IntList> index, Siteswap sequence, int id) {
+		int length = sequence.period_length();
+		int[] keys = new int[getNumberOfJugglers() > 1 ? 2 * length : length];
+		for (int start = 0; start < length; ++start) {
+			int key = 0;
+			int passSelfKey = 0;
+			for (int i = start; i < start + mNgramLength; ++i) {
+				key = appendToKey(key, sequence.at(i));
+				passSelfKey = appendToKey(passSelfKey, toPassSelf(sequence.at(i)));
+			}
+			keys[start] = key;
+			if (getNumberOfJugglers() > 1)
+				keys[length + start] = passSelfKey;
+		}
+		// Every siteswap is added only once to each posting list
+		Arrays.sort(keys);
+		for (int i = 0; i < keys.length; ++i) {
+			if (i > 0 && keys[i] == keys[i - 1])
+				continue;
+			IntList postings = index.get(keys[i]);
+			if (postings == null) {
+				postings = new IntList();
+				index.put(keys[i], postings);
+			}
+			postings.add(id);
+		}
+	}
+
+	private static int appendToKey(int key, int value) {
+		// Throw values are between -8 and 55, this fits into 6 bits
+		return (key << 6) | ((value + 8) & 0x3f);
+	}
+
+	private int toPassSelf(int value) {
+		if (value < 0)
+			return value;
+		return Siteswap.isPass(value, getNumberOfJugglers()) ? Siteswap.PASS : Siteswap.SELF;
+	}
+
+	private static void increment(TreeMap<Integer, Integer> counts, int value) {
+		Integer count = counts.get(value);
+		counts.put(value, count == null ? 1 : count + 1);
+	}
+
+	private static boolean matchesFilters(Siteswap siteswap, List<Filter> filterList) {
+		if (filterList == null)
+			return true;
+		for (Filter filter : filterList) {
+			if (!filter.isFulfilled(siteswap))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * File format: magic, version, n-gram length, compressed siteswap list, value
+	 * count index, siteswap n-gram index and interface n-gram index. Posting lists
+	 * are stored as variable length encoded differences of the siteswap ids.
+	 * */
+	public void write(OutputStream outputStream) throws IOException {
+		DataOutputStream out = new DataOutputStream(outputStream);
+		out.write(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(mNgramLength);
+		byte[] siteswaps = mSiteswaps.toByteArray();
+		out.writeInt(siteswaps.length);
+		out.write(siteswaps);
+
+		out.writeInt(mValueCountIndex.size());
+		for (Map.Entry<Integer, int[][]> entry : mValueCountIndex.entrySet()) {
+			out.writeInt(entry.getKey());
+			out.writeInt(entry.getValue().length);
+			for (int[] postings : entry.getValue())
+				writePostings(out, postings);
+		}
+		writeNgramIndex(out, mSiteswapNgramIndex);
+		writeNgramIndex(out, mInterfaceNgramIndex);
+		out.flush();
+	}
+
+	public static SiteswapCatalog read(InputStream inputStream) throws IOException {
+		DataInputStream in = new DataInputStream(inputStream);
+		byte[] magic = new byte[MAGIC.length];
+		in.readFully(magic);
+		if (!Arrays.equals(magic, MAGIC))
+			throw new IOException("Not a siteswap catalog");
+		int version = in.readInt();
+		if (version != VERSION)
+			throw new IOException("Unsupported siteswap catalog version " + version);
+
+		SiteswapCatalog catalog = new SiteswapCatalog();
+		catalog.mNgramLength = in.readInt();
+		byte[] siteswaps = new byte[in.readInt()];
+		in.readFully(siteswaps);
+		try {
+			catalog.mSiteswaps = CompressedSiteswapList.fromByteArray(siteswaps);
+		} catch (IllegalArgumentException e) {
+			throw new IOException(e.getMessage());
+		}
+
+		int numberOfValues = in.readInt();
+		for (int i = 0; i < numberOfValues; ++i) {
+			int value = in.readInt();
+			int[][] lists = new int[in.readInt()][];
+			for (int j = 0; j < lists.length; ++j)
+				lists[j] = readPostings(in);
+			catalog.mValueCountIndex.put(value, lists);
+		}
+		readNgramIndex(in, catalog.mSiteswapNgramIndex);
+		readNgramIndex(in, catalog.mInterfaceNgramIndex);
+		return catalog;
+	}
+
+	private static void writeNgramIndex(DataOutputStream out, TreeMap<Integer, int[]> index)
+			throws IOException {
+		out.writeInt(index.size());
+		for (Map.Entry<Integer, int[]> entry : index.entrySet()) {
+			out.writeInt(entry.getKey());
+			writePostings(out, entry.getValue());
+		}
+	}
+
+	private static void readNgramIndex(DataInputStream in, TreeMap<Integer, int[]> index)
+			throws IOException {
+		int size = in.readInt();
+		for (int i = 0; i < size; ++i) {
+			int key = in.readInt();
+			index.put(key, readPostings(in));
+		}
+	}
+
+	private static void writePostings(DataOutputStream out, int[] postings) throws IOException {
+		writeVarInt(out, postings.length);
+		int previous = 0;
+		for (int id : postings) {
+			writeVarInt(out, id - previous);
+			previous = id;
+		}
+	}
+
+	private static int[] readPostings(DataInputStream in) throws IOException {
+		int[] postings = new int[readVarInt(in)];
+		int previous = 0;
+		for (int i = 0; i < postings.length; ++i) {
+			previous += readVarInt(in);
+			postings[i] = previous;
+		}
+		return postings;
+	}
+
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while ((value & ~0x7f) != 0) {
+			out.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	private static int readVarInt(DataInputStream in) throws IOException {
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			if (shift > 28)
+				throw new IOException("Invalid variable length integer");
+			b = in.readUnsignedByte();
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private static class IntList {
+		int[] mData = new int[4];
+		int mSize = 0;
+
+		void add(int value) {
+			if (mSize == mData.length)
+				mData = Arrays.copyOf(mData, 2 * mSize);
+			mData[mSize++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(mData, mSize);
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package siteswaplib;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.EnumSet;
+import java.util.Locale;
+
+/**
+ * Streams siteswaps to a channel (e.g. a file channel) as plain text, CSV or JSON.
+ * Rows are encoded into a reusable buffer, that is written to the channel whenever
+ * it is full, so the memory usage does not depend on the number of rows.
+ *
+ * The exporter can be used as SiteswapSink of a SiteswapGenerator, or to write a
+ * stored result set with writeAll(). Write errors during generation abort the
+ * search and are reported by close().
+ */
+public class SiteswapExporter implements SiteswapSink {
+
+	public enum Format {TEXT, CSV, JSON}
+
+	public enum Column {SITESWAP, NUMBER_OF_OBJECTS, PERIOD_LENGTH, GETIN, GETOUT, LOCAL}
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private WritableByteChannel mChannel;
+	private Format mFormat;
+	private Column[] mColumns;
+	private ByteBuffer mBuffer;
+	private int mNumberOfRows = 0;
+	private IOException mError = null;
+
+	public SiteswapExporter(WritableByteChannel channel, Format format, EnumSet<Column> columns)
+			throws IOException {
+		mChannel = channel;
+		mFormat = format;
+		mColumns = columns.toArray(new Column[columns.size()]);
+		mBuffer = ByteBuffer.allocate(BUFFER_SIZE);
+		if (mFormat == Format.CSV) {
+			for (int i = 0; i < mColumns.length; ++i) {
+				if (i != 0)
+					put(',');
+				put(columnName(mColumns[i]));
+			}
+			put('\n');
+		}
+		else if (mFormat == Format.JSON) {
+			put('[');
+		}
+	}
+
+	public SiteswapExporter(WritableByteChannel channel, Format format) throws IOException {
+		this(channel, format, EnumSet.of(Column.SITESWAP));
+	}
+
+	@Override
+	public boolean onSiteswapGenerated(Siteswap siteswap) {
+		try {
+			write(siteswap);
+			return true;
+		} catch (IOException e) {
+			mError = e;
+			return false;
+		}
+	}
+
+	public void writeAll(Iterable<Siteswap> siteswaps) throws IOException {
+		for (Siteswap siteswap : siteswaps)
+			write(siteswap);
+	}
+
+	public void write(Siteswap siteswap) throws IOException {
+		if (mFormat == Format.JSON) {
+			if (mNumberOfRows != 0)
+				put(',');
+			put("\n{");
+		}
+		for (int i = 0; i < mColumns.length; ++i) {
+			if (i != 0)
+				put(mFormat == Format.TEXT ? '\t' : ',');
+			if (mFormat == Format.JSON) {
+				put('"');
+				put(columnName(mColumns[i]));
+				put("\":");
+			}
+			writeColumn(siteswap, mColumns[i]);
+		}
+		put(mFormat == Format.JSON ? '}' : '\n');
+		mNumberOfRows++;
+	}
+
+	public int getNumberOfRows() {
+		return mNumberOfRows;
+	}
+
+	/**
+	 * Writes the remaining buffer content. The channel is not closed.
+	 * */
+	public void close() throws IOException {
+		if (mError != null)
+			throw mError;
+		if (mFormat == Format.JSON)
+			put("\n]\n");
+		flush();
+	}
+
+	private void writeColumn(Siteswap siteswap, Column column) throws IOException {
+		switch (column) {
+			case SITESWAP:
+				putQuoted(siteswap);
+				break;
+			case NUMBER_OF_OBJECTS:
+				put(Integer.toString(siteswap.getNumberOfObjects()));
+				break;
+			case PERIOD_LENGTH:
+				put(Integer.toString(siteswap.period_length()));
+				break;
+			case GETIN:
+				putQuoted(siteswap.calculateGetin());
+				break;
+			case GETOUT:
+				putQuoted(siteswap.calculateGetout());
+				break;
+			case LOCAL:
+				putLocal(siteswap);
+				break;
+		}
+	}
+
+	/**
+	 * Local notation of all jugglers, separated by '|'. The throws and passes are
+	 * written as in Siteswap.toLocalString(), but without html tags and without
+	 * the trailing space. For a single juggler this is the siteswap itself.
+	 * */
+	private void putLocal(Siteswap siteswap) throws IOException {
+		int numberOfJugglers = siteswap.getNumberOfJugglers();
+		if (numberOfJugglers == 1) {
+			putQuoted(siteswap);
+			return;
+		}
+		quote();
+		for (int juggler = 0; juggler < numberOfJugglers; ++juggler) {
+			if (juggler != 0)
+				put(" | ");
+			for (int i = 0; i < siteswap.period_length(); ++i) {
+				int position = juggler + i * numberOfJugglers;
+				int value = siteswap.at(position);
+				if (i != 0)
+					put(' ');
+				putDivided(value, numberOfJugglers);
+				if (Siteswap.isPass(value, numberOfJugglers)) {
+					if (numberOfJugglers >= 3)
+						put((char) ('A' + (position + value) % numberOfJugglers));
+					put(((juggler + value) / numberOfJugglers) % 2 == 0 ? 'x' : 's');
+				}
+			}
+		}
+		quote();
+	}
+
+	/**
+	 * Writes value / divisor with at most one decimal place, like the
+	 * DecimalFormat "0.#" used by Siteswap, which rounds half to even.
+	 * */
+	private void putDivided(int value, int divisor) throws IOException {
+		int tenths = (int) Math.rint(value * 10.0 / divisor);
+		put(Integer.toString(tenths / 10));
+		if (tenths % 10 != 0) {
+			put('.');
+			put((char) ('0' + tenths % 10));
+		}
+	}
+
+	private void putQuoted(Siteswap siteswap) throws IOException {
+		quote();
+		for (int i = 0; i < siteswap.period_length(); ++i)
+			put(Siteswap.intToChar(siteswap.at(i)));
+		quote();
+	}
+
+	private void quote() throws IOException {
+		if (mFormat == Format.JSON)
+			put('"');
+	}
+
+	private static String columnName(Column column) {
+		return column.name().toLowerCase(Locale.US);
+	}
+
+	private void put(String str) throws IOException {
+		for (int i = 0; i < str.length(); ++i)
+			put(str.charAt(i));
+	}
+
+	private void put(char c) throws IOException {
+		if (!mBuffer.hasRemaining())
+			flush();
+		mBuffer.put((byte) c);
+	}
+
+	private void flush() throws IOException {
+		mBuffer.flip();
+		while (mBuffer.hasRemaining())
+			mChannel.write(mBuffer);
+		mBuffer.clear();
+	}
+}
@@ -0,0 +1,930 @@
+package siteswaplib;
+
+import java.util.*;
+import java.io.Serializable;
+
+public class SiteswapGenerator implements Serializable{
+
+	// Initial capacity of the result store in siteswaps
+	private static final int INITIAL_RESULT_CAPACITY = 256;
+	// Shard boundaries are chosen from at least this many prefixes per shard
+	private static final int SHARD_PREFIXES_PER_SHARD = 16;
+	private static final int SHARD_ESTIMATE_PROBES = 32;
+	// Every process has to compute the same shards
+	private static final long SHARD_ESTIMATE_SEED = 20171105;
+
+	private LinkedList<Siteswap> mSiteswaps;
+	private LinkedList<Filter> mFilterList;
+	private int mPeriodLength;
+	private byte mMaxThrow;
+	private byte mMinThrow;
+	private byte mNumberOfObjects;
+	private int mNumberOfJugglers;
+	private int mMaxResults = 1000000000;
+	private long mStartTime = 0;
+    private long mTimeoutMillis = 100000;
+	private boolean mCalculationComplete = false;
+	private int mBacktrackingCount = 0; // Just for algorithm performance analysis
+	private boolean mIsRandomGeneration = false;
+	private transient SiteswapSink mSink = null;
+	private transient SearchRecorder mRecorder = null;
+	private boolean mIsStoringResults = true;
+	private int mNumberOfResults = 0;
+	// Set by another thread, checked together with the timeout
+	private transient volatile boolean mIsCancelled = false;
+
+	// The search does not allocate per node. Filters are copied to an array before
+	// the search and the throws of the results are copied one after another into a
+	// store, that grows by doubling. The list of getSiteswaps() is created on request.
+	private transient Filter[] mFilters = null;
+	private transient Random mRandom = null;
+	private byte[] mResults = null;
+	private int mNumberOfStoredResults = 0;
+	private int mResultPeriodLength;
+	private int mResultNumberOfJugglers;
+
+	// Parameters and results of the last complete run. When only the throw bounds
+	// are widened afterwards, just the siteswaps using the new throw values are generated.
+	private byte[] mCachedResults = null;
+	private int mCachedNumberOfResults;
+	private LinkedList<Filter> mCachedFilterList = null;
+	private int mCachedPeriodLength;
+	private byte mCachedMaxThrow;
+	private byte mCachedMinThrow;
+	private byte mCachedNumberOfObjects;
+	private int mCachedNumberOfJugglers;
+	private boolean mIsDeltaGeneration = false;
+
+	// Search position for resuming an aborted run (see GenerationCheckpoint)
+	private GenerationCheckpoint mCheckpoint = null;
+	private GenerationCheckpoint mResumeCheckpoint = null;
+	private boolean mIsResuming = false;
+
+	// Only the siteswaps of the shard are generated (see GenerationShard)
+	private GenerationShard mShard = null;
+	private transient byte[] mShardEndPrefix = null;
+	private boolean mIsShardEndReached = false;
+
+	public SiteswapGenerator(int length, int max, int min, int objects, int number_of_jugglers) {
+		this.mPeriodLength = length;
+		this.mMaxThrow = (byte) max;
+		this.mMinThrow = (byte) min;
+		this.mNumberOfObjects = (byte) objects;
+		setNumberOfJugglers(number_of_jugglers);
+        mFilterList = new LinkedList<Filter>();
+        Filter.addDefaultFilters(mFilterList, number_of_jugglers);
+	}
+
+    public SiteswapGenerator(int length, int max, int min, int objects, int number_of_jugglers,
+                             LinkedList<Filter> filterList) {
+
+        this(length, max, min, objects, number_of_jugglers);
+        mFilterList = filterList;
+    }
+	
+	public LinkedList<Filter> getFilterList() {
+		return mFilterList;
+	}
+	
+	public void setFilterList(LinkedList<Filter> filterList) {
+		this.mFilterList = filterList;
+	}
+
+	public boolean generateSiteswaps() {
+		mCalculationComplete = false;
+		mBacktrackingCount = 0;
+		mNumberOfResults = 0;
+		mCheckpoint = null;
+		mIsShardEndReached = false;
+		mShardEndPrefix = null;
+		if (mShard != null && !mIsRandomGeneration) {
+			if (mResumeCheckpoint == null)
+				mResumeCheckpoint = mShard.getStartCheckpoint();
+			mShardEndPrefix = mShard.getEndPrefix();
+		}
+		mIsResuming = mResumeCheckpoint != null && !mIsRandomGeneration;
+		mIsDeltaGeneration = !mIsResuming && mSink == null && mIsStoringResults &&
+				isWidenedCachedRun();
+		byte[] cachedResults = mCachedResults;
+		int numberOfCachedResults = mCachedNumberOfResults;
+		mSiteswaps = null;
+		mResults = new byte[mIsStoringResults ?
+				Math.min(mMaxResults, INITIAL_RESULT_CAPACITY) * mPeriodLength : 0];
+		mNumberOfStoredResults = 0;
+		mResultPeriodLength = mPeriodLength;
+		mResultNumberOfJugglers = mNumberOfJugglers;
+		updateFilters();
+		if (mIsRandomGeneration && mRandom == null)
+			mRandom = new Random();
+        mStartTime = System.currentTimeMillis();
+		byte[] siteswapArray = new byte[mPeriodLength];
+		byte[] interfaceArray = new byte[mPeriodLength];
+		Arrays.fill(siteswapArray, Siteswap.FREE);
+		Arrays.fill(interfaceArray, Siteswap.FREE);
+		Siteswap siteswap = new Siteswap(siteswapArray, mNumberOfJugglers);
+
+		// The inteface describes, where throws are coming down
+		Siteswap siteswapInterface = new Siteswap(interfaceArray, mNumberOfJugglers);
+
+		SearchRecorder recorder = mRecorder;
+		long startNanos = 0;
+		if (recorder != null) {
+			recorder.onSearchStarted(this);
+			startNanos = System.nanoTime();
+		}
+
+		boolean result = backtracking(siteswap, siteswapInterface, 0, 0);
+		if (mIsShardEndReached)
+			result = true;
+
+		if (mIsRandomGeneration) {
+			while (System.currentTimeMillis() - mStartTime < mTimeoutMillis &&
+					mNumberOfResults < mMaxResults && !mIsCancelled) {
+				for (int i = 0; i < mPeriodLength; ++i) {
+					siteswap.set(i, Siteswap.FREE);
+					siteswapInterface.set(i, Siteswap.FREE);
+				}
+				result = backtracking(siteswap, siteswapInterface, 0, 0);
+			}
+		}
+
+		if (recorder != null)
+			recorder.onSearchFinished(System.nanoTime() - startNanos);
+
+		if (mIsDeltaGeneration) {
+			boolean isTimeout = mCheckpoint != null && !mCheckpoint.isPrefixExplored();
+			LinkedList<Siteswap> merged = mergeSiteswapLists(createSiteswapList(cachedResults,
+					numberOfCachedResults), getSiteswaps());
+			if (merged.size() >= mMaxResults) {
+				while (merged.size() > mMaxResults)
+					merged.removeLast();
+				result = false;
+			}
+			setResults(merged);
+			// The checkpoint of the delta search does not refer to the merged results.
+			// Without timeout the merged results are complete up to the last siteswap.
+			mCheckpoint = null;
+			if (!result && !isTimeout && !merged.isEmpty())
+				saveCheckpoint(merged.getLast(), mPeriodLength, true);
+			mIsDeltaGeneration = false;
+		}
+
+		boolean isResumedRun = mResumeCheckpoint != null;
+		mResumeCheckpoint = null;
+		mIsResuming = false;
+		if (mIsRandomGeneration)
+			mCheckpoint = null;
+
+		if (result && !mIsRandomGeneration && !isResumedRun && mIsStoringResults)
+			cacheRun();
+		else
+			mCachedResults = null;
+
+		mCalculationComplete = true;
+		return result;
+	}
+
+	/**
+	 * Returns true, if the last complete run used the same parameters and filters
+	 * and the throw bounds have only been widened since. The results for the old
+	 * bounds are then exactly the new results without the new extreme throw values.
+	 * */
+	private boolean isWidenedCachedRun() {
+		if (mCachedResults == null || mIsRandomGeneration)
+			return false;
+		if (mCachedPeriodLength != mPeriodLength ||
+				mCachedNumberOfObjects != mNumberOfObjects ||
+				mCachedNumberOfJugglers != mNumberOfJugglers)
+			return false;
+		if (mMaxThrow < mCachedMaxThrow || mMinThrow > mCachedMinThrow)
+			return false;
+		if (mMaxThrow == mCachedMaxThrow && mMinThrow == mCachedMinThrow)
+			return false;
+		return isSameFilterList(mCachedFilterList, mFilterList);
+	}
+
+	/**
+	 * Returns true, if both generators would generate the same siteswaps.
+	 * */
+	public boolean hasSameParameters(SiteswapGenerator other) {
+		return hasSameSearchSpace(other) &&
+				(mShard == null ? other.mShard == null : mShard.equals(other.mShard)) &&
+				mMaxResults == other.mMaxResults &&
+				mTimeoutMillis == other.mTimeoutMillis &&
+				mIsRandomGeneration == other.mIsRandomGeneration;
+	}
+
+	/**
+	 * Returns true, if both generators search the same tree, i.e. a search tree
+	 * estimate of one generator is valid for the other one.
+	 * */
+	public boolean hasSameSearchSpace(SiteswapGenerator other) {
+		return mPeriodLength == other.mPeriodLength &&
+				mMaxThrow == other.mMaxThrow &&
+				mMinThrow == other.mMinThrow &&
+				mNumberOfObjects == other.mNumberOfObjects &&
+				mNumberOfJugglers == other.mNumberOfJugglers &&
+				isSameFilterList(mFilterList, other.mFilterList);
+	}
+
+	private void cacheRun() {
+		mCachedResults = mResults;
+		mCachedNumberOfResults = mNumberOfStoredResults;
+		mCachedFilterList = (mFilterList == null) ? null : new LinkedList<Filter>(mFilterList);
+		mCachedPeriodLength = mPeriodLength;
+		mCachedMaxThrow = mMaxThrow;
+		mCachedMinThrow = mMinThrow;
+		mCachedNumberOfObjects = mNumberOfObjects;
+		mCachedNumberOfJugglers = mNumberOfJugglers;
+	}
+
+	private static boolean isSameFilterList(LinkedList<Filter> lhs, LinkedList<Filter> rhs) {
+		if (lhs == null || rhs == null)
+			return lhs == rhs;
+		if (lhs.size() != rhs.size())
+			return false;
+		Iterator<Filter> it = rhs.iterator();
+		for (Filter filter : lhs) {
+			Filter other = it.next();
+			if (filter.getClass() != other.getClass() || !filter.equals(other))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Both lists are in canonical (ascending) order, as produced by backtracking.
+	 * */
+	private static LinkedList<Siteswap> mergeSiteswapLists(LinkedList<Siteswap> first,
+														   LinkedList<Siteswap> second) {
+		LinkedList<Siteswap> merged = new LinkedList<Siteswap>();
+		Iterator<Siteswap> firstIt = first.iterator();
+		Iterator<Siteswap> secondIt = second.iterator();
+		Siteswap a = firstIt.hasNext() ? firstIt.next() : null;
+		Siteswap b = secondIt.hasNext() ? secondIt.next() : null;
+		while (a != null || b != null) {
+			if (b == null || (a != null && a.compareTo(b) <= 0)) {
+				merged.add(a);
+				a = firstIt.hasNext() ? firstIt.next() : null;
+			}
+			else {
+				merged.add(b);
+				b = secondIt.hasNext() ? secondIt.next() : null;
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * In delta generation only siteswaps using a throw outside of the cached bounds
+	 * are new. The first throw of the unique representation is the highest one.
+	 * */
+	private boolean isDeltaSiteswap(Siteswap siteswap) {
+		if (siteswap.at(0) > mCachedMaxThrow)
+			return true;
+		for (int i = 0; i < siteswap.period_length(); ++i) {
+			if (siteswap.at(i) < mCachedMinThrow)
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * The next call of generateSiteswaps() continues the search at the given
+	 * checkpoint. Only siteswaps after the checkpoint position are generated.
+	 * */
+	public void resumeFrom(GenerationCheckpoint checkpoint) {
+		if (checkpoint != null && (!checkpoint.matches(this) ||
+				checkpoint.getPrefix().length > mPeriodLength))
+			throw new IllegalArgumentException("Checkpoint does not match generator parameters");
+		mResumeCheckpoint = checkpoint;
+	}
+
+	/**
+	 * Returns the position, where the last run was aborted due to timeout or
+	 * because the maximum number of results was reached. Returns null, if the
+	 * last run was complete or random generation was used.
+	 * */
+	public GenerationCheckpoint getCheckpoint() {
+		return mCheckpoint;
+	}
+
+	/**
+	 * Splits the search space into the given number of shards, which can be
+	 * generated independently, e.g. by different processes or machines (see
+	 * setShard()). The shard boundaries are prefixes of the first throws. The
+	 * prefix length is chosen, so that there are enough search tree nodes with
+	 * this depth. The subtree size of every node is estimated (see
+	 * estimateSearchTree()) and consecutive nodes are assigned to a shard, until
+	 * it contains its part of the estimated nodes.
+	 *
+	 * The estimates use a fixed seed. Therefore every call with the same
+	 * parameters and filters returns the same shards, without any coordination
+	 * between the processes. Shards, that start behind the last node, are empty.
+	 * */
+	public List<GenerationShard> createShards(int numberOfShards) {
+		if (numberOfShards < 1)
+			throw new IllegalArgumentException("At least one shard is required");
+		updateFilters();
+		int minNumberOfPrefixes = numberOfShards * SHARD_PREFIXES_PER_SHARD;
+		List<byte[]> prefixes = new ArrayList<byte[]>();
+		for (int depth = 1; depth <= mPeriodLength && prefixes.size() < minNumberOfPrefixes; ++depth) {
+			prefixes.clear();
+			byte[] siteswapArray = new byte[mPeriodLength];
+			byte[] interfaceArray = new byte[mPeriodLength];
+			Arrays.fill(siteswapArray, Siteswap.FREE);
+			Arrays.fill(interfaceArray, Siteswap.FREE);
+			collectPrefixes(new Siteswap(siteswapArray, mNumberOfJugglers),
+					new Siteswap(interfaceArray, mNumberOfJugglers), 0, 0, depth, prefixes);
+		}
+
+		Random random = new Random(SHARD_ESTIMATE_SEED);
+		double[] nodes = new double[prefixes.size()];
+		double totalNodes = 0;
+		for (int i = 0; i < nodes.length; ++i) {
+			nodes[i] = estimateSubtree(prefixes.get(i), SHARD_ESTIMATE_PROBES, random).getNodes();
+			totalNodes += nodes[i];
+		}
+
+		// Behind the last prefix, the first throw can not be higher than mMaxThrow
+		byte[] behindLastPrefix = new byte[]{(byte) (mMaxThrow + 1)};
+		List<GenerationShard> shards = new ArrayList<GenerationShard>(numberOfShards);
+		byte[] startPrefix = new byte[0];
+		int prefixIndex = 0;
+		double assignedNodes = 0;
+		for (int shard = 0; shard < numberOfShards; ++shard) {
+			double shardNodes = 0;
+			byte[] endPrefix = null;
+			if (shard != numberOfShards - 1) {
+				double targetNodes = totalNodes * (shard + 1) / numberOfShards;
+				while (prefixIndex < nodes.length &&
+						assignedNodes + shardNodes + nodes[prefixIndex] / 2 <= targetNodes)
+					shardNodes += nodes[prefixIndex++];
+				endPrefix = (prefixIndex < nodes.length) ? prefixes.get(prefixIndex) : behindLastPrefix;
+			}
+			else {
+				while (prefixIndex < nodes.length)
+					shardNodes += nodes[prefixIndex++];
+			}
+			shards.add(new GenerationShard(mPeriodLength, mMaxThrow, mMinThrow, mNumberOfObjects,
+					mNumberOfJugglers, shard, numberOfShards, startPrefix, endPrefix, shardNodes));
+			assignedNodes += shardNodes;
+			startPrefix = endPrefix;
+		}
+		return shards;
+	}
+
+	/**
+	 * Adds the prefixes of all nodes with the given depth in search order.
+	 * */
+	private void collectPrefixes(Siteswap siteswap, Siteswap siteswapInterface, int currentIndex,
+								 int uniqueRepresentationIndex, int depth, List<byte[]> prefixes) {
+		if (currentIndex != 0 &&
+				!matchesFiltersPartialSitswap(siteswap, siteswapInterface, currentIndex - 1))
+			return;
+		if (currentIndex == depth) {
+			byte[] prefix = new byte[depth];
+			for (int i = 0; i < depth; ++i)
+				prefix[i] = siteswap.at(i);
+			prefixes.add(prefix);
+			return;
+		}
+
+		int min, max, uniqeMax;
+		if (currentIndex == 0) {
+			min = mNumberOfObjects;
+			max = getFirstThrowUpperBound();
+			uniqeMax = mMaxThrow + 1;
+		}
+		else {
+			uniqeMax = siteswap.at(uniqueRepresentationIndex);
+			min = getLowerThrowBound(siteswap, siteswapInterface, currentIndex);
+			max = getUpperThrowBound(siteswap, siteswapInterface, currentIndex, uniqeMax);
+		}
+
+		for (int value = min; value <= max; ++value) {
+			if (siteswapInterface.at(currentIndex + value) != Siteswap.FREE)
+				continue;
+			siteswap.set(currentIndex, value);
+			siteswapInterface.set(currentIndex + value, value);
+			int nextUniqueIndex = (value == uniqeMax) ? uniqueRepresentationIndex + 1 : 0;
+			collectPrefixes(siteswap, siteswapInterface, currentIndex + 1, nextUniqueIndex,
+					depth, prefixes);
+			siteswapInterface.set(currentIndex + value, Siteswap.FREE);
+		}
+		siteswap.set(currentIndex, Siteswap.FREE);
+	}
+
+	/**
+	 * The next calls of generateSiteswaps() only generate the siteswaps of the
+	 * shard. null generates all siteswaps again. A checkpoint of a shard run can
+	 * be resumed as usual, as long as the shard is still set. Shards are ignored
+	 * by random generation.
+	 * */
+	public void setShard(GenerationShard shard) {
+		if (shard != null && (!shard.matches(this) ||
+				shard.getStartPrefix().length > mPeriodLength))
+			throw new IllegalArgumentException("Shard does not match generator parameters");
+		mShard = shard;
+	}
+
+	public GenerationShard getShard() {
+		return mShard;
+	}
+
+	private void saveCheckpoint(Siteswap siteswap, int length, boolean isPrefixExplored) {
+		byte[] prefix = new byte[length];
+		for (int i = 0; i < length; ++i)
+			prefix[i] = siteswap.at(i);
+		mCheckpoint = new GenerationCheckpoint(mPeriodLength, mMaxThrow, mMinThrow,
+				mNumberOfObjects, mNumberOfJugglers, prefix, isPrefixExplored);
+	}
+
+	/**
+	 * Aborts a running search and all following ones of this generator, like a
+	 * timeout, within the next 1000 nodes. Can be called from any thread.
+	 * */
+	public void cancel() {
+		mIsCancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return mIsCancelled;
+	}
+
+	/**
+	 * Every generated siteswap is passed to the sink while the search is running.
+	 * The sink is not serialized with the generator.
+	 * */
+	public void setSiteswapSink(SiteswapSink sink) {
+		mSink = sink;
+	}
+
+	/**
+	 * The recorder gets all events of the following searches, e.g. a SearchMetrics
+	 * to analyse, where a search spends its time. null disables recording.
+	 * */
+	public void setSearchRecorder(SearchRecorder recorder) {
+		mRecorder = recorder;
+	}
+
+	/**
+	 * If false, generated siteswaps are only passed to the sink and getSiteswaps()
+	 * stays empty. This keeps the memory usage constant for large result sets.
+	 * */
+	public void setStoringResults(boolean isStoringResults) {
+		mIsStoringResults = isStoringResults;
+	}
+
+	public void setNumberOfJugglers(int numberOfJugglers) {
+		this.mNumberOfJugglers = numberOfJugglers;
+	}
+
+	public void setPeriodLength(int periodLength) {
+		this.mPeriodLength = periodLength;
+	}
+
+	public void setMaxThrow(int maxThrow) {
+		this.mMaxThrow = (byte) maxThrow;
+	}
+
+	public void setMinThrow(int minThrow) {
+		this.mMinThrow = (byte) minThrow;
+	}
+
+	public void setNumberOfObjects(int numberOfObjects) {
+		this.mNumberOfObjects = (byte) numberOfObjects;
+	}
+
+	public void setMaxResults(int maxResults) {
+		this.mMaxResults = maxResults;
+	}
+
+    public void setTimeoutSeconds(int timeoutSeconds) {
+        this.mTimeoutMillis = timeoutSeconds * 1000L;
+    }
+
+	/**
+	 * Finer timeout, e.g. for time slices. A run aborted by the timeout can be
+	 * continued with resumeFrom(getCheckpoint()).
+	 * */
+	public void setTimeoutMillis(long timeoutMillis) {
+		this.mTimeoutMillis = timeoutMillis;
+	}
+
+    public void setRandomGeneration(boolean isRandomGeneration) {
+		mIsRandomGeneration = isRandomGeneration;
+	}
+	
+	public LinkedList<Siteswap> getSiteswaps() {
+		if (mSiteswaps == null && mResults != null)
+			mSiteswaps = createSiteswapList(mResults, mNumberOfStoredResults);
+		return mSiteswaps;
+	}
+
+	private LinkedList<Siteswap> createSiteswapList(byte[] results, int numberOfResults) {
+		LinkedList<Siteswap> siteswaps = new LinkedList<Siteswap>();
+		for (int i = 0; i < numberOfResults; ++i) {
+			siteswaps.add(new Siteswap(Arrays.copyOfRange(results, i * mResultPeriodLength,
+					(i + 1) * mResultPeriodLength), mResultNumberOfJugglers));
+		}
+		return siteswaps;
+	}
+
+	private void setResults(LinkedList<Siteswap> siteswaps) {
+		mResults = new byte[siteswaps.size() * mResultPeriodLength];
+		mNumberOfStoredResults = 0;
+		for (Siteswap siteswap : siteswaps)
+			storeResult(siteswap);
+		mSiteswaps = siteswaps;
+	}
+
+	private void storeResult(Siteswap siteswap) {
+		int offset = mNumberOfStoredResults * mResultPeriodLength;
+		if (offset + mResultPeriodLength > mResults.length)
+			mResults = Arrays.copyOf(mResults, Math.max(2 * mResults.length, offset + mResultPeriodLength));
+		for (int i = 0; i < mResultPeriodLength; ++i)
+			mResults[offset + i] = siteswap.at(i);
+		mNumberOfStoredResults++;
+	}
+
+	private void updateFilters() {
+		mFilters = (mFilterList == null) ? null : mFilterList.toArray(new Filter[mFilterList.size()]);
+	}
+
+	public int getPeriodLength() {
+		return mPeriodLength;
+	}
+
+	public byte getMaxThrow() {
+		return mMaxThrow;
+	}
+
+	public byte getMinThrow() {
+		return mMinThrow;
+	}
+
+	public byte getNumberOfObjects() {
+		return mNumberOfObjects;
+	}
+
+	public int getNumberOfJugglers() {
+		return mNumberOfJugglers;
+	}
+
+	public int getMaxResults() {
+		return mMaxResults;
+	}
+
+    public int getTimeoutSeconds() {
+        return (int) (mTimeoutMillis / 1000);
+    }
+
+	public long getTimeoutMillis() {
+		return mTimeoutMillis;
+	}
+
+	public int getNumberOfResults() {
+		return mNumberOfResults;
+	}
+
+	public int getBacktrackingCount() {
+		return mBacktrackingCount;
+	}
+
+	public boolean isRandomGeneration() {
+		return mIsRandomGeneration;
+	}
+
+    public boolean isCalculationComplete() {
+		return mCalculationComplete;
+	}
+
+	private int getMaxSumToGenerate(Siteswap siteswap, Siteswap siteswapInterface, int index) {
+		int maxSum = 0;
+		int interfaceIndex = siteswap.period_length() + mMaxThrow - 2;
+		for(int i = siteswap.period_length() - 1; i >= index; --i) {
+			while (siteswapInterface.at(interfaceIndex) != Siteswap.FREE)
+				interfaceIndex--;
+			maxSum += (interfaceIndex - i);
+			interfaceIndex--;
+		}
+		return maxSum;
+	}
+
+	private int getMinSumToGenerate(Siteswap siteswap, Siteswap siteswapInterface, int index) {
+		int minSum = 0;
+		int interfaceIndex = index + mMinThrow;
+		for(int i = index; i < siteswap.period_length(); ++i) {
+			while (siteswapInterface.at(interfaceIndex) != Siteswap.FREE)
+				interfaceIndex++;
+			minSum += (interfaceIndex - i);
+			interfaceIndex++;
+		}
+		return minSum;
+	}
+
+	private int getLowerThrowBound(Siteswap siteswap, Siteswap siteswapInterface, int currentIndex) {
+		int partialSum = siteswap.getPartialSum(0, currentIndex - 1);
+		int sum = mPeriodLength * mNumberOfObjects;
+
+		// calculate minimum throw. The minimum throw must be hight enougth, that
+		// the overall sum can be numberOfOjects * periodLength
+		int minDeterminedByAverage = sum - partialSum - getMaxSumToGenerate(siteswap, siteswapInterface, currentIndex + 1);
+		return (minDeterminedByAverage > mMinThrow) ? minDeterminedByAverage : mMinThrow;
+	}
+
+	/**
+	 * The first throw is the highest throw of the unique representation. A single
+	 * throw has to be the number of objects, because no later throw can make up
+	 * for the average.
+	 * */
+	private int getFirstThrowUpperBound() {
+		if (mPeriodLength == 1 && mNumberOfObjects < mMaxThrow)
+			return mNumberOfObjects;
+		return mMaxThrow;
+	}
+
+	private int getUpperThrowBound(Siteswap siteswap, Siteswap siteswapInterface, int currentIndex,
+								   int uniqeMax) {
+		int partialSum = siteswap.getPartialSum(0, currentIndex - 1);
+		int sum = mPeriodLength * mNumberOfObjects;
+
+		// calculate max throw. The maximum throw can not be higher, than required
+		// by the unique representation property. Additionally it must be possible,
+		// that the overall sum is numberOfOjects * periodLength
+		int maxDeterminedByAverage = sum - partialSum - getMinSumToGenerate(siteswap, siteswapInterface, currentIndex + 1);
+		return (maxDeterminedByAverage < uniqeMax) ? maxDeterminedByAverage : uniqeMax;
+	}
+
+	/**
+	 * Estimates the size of the search tree with Knuth's method: each probe walks
+	 * from the root to a leaf, choosing a random child (with the same pruning and
+	 * filters as the real search) at every node. The product of the branching
+	 * factors along the path is an unbiased estimate of the number of nodes on
+	 * that depth. The estimate stops early, if the thread is interrupted.
+	 * */
+	public SearchTreeEstimate estimateSearchTree(int numberOfProbes, Random random) {
+		updateFilters();
+		return estimateSubtree(new byte[0], numberOfProbes, random);
+	}
+
+	/**
+	 * Estimates the size of the subtree below the node of the given prefix. The
+	 * prefix has to be a node of the search tree.
+	 * */
+	private SearchTreeEstimate estimateSubtree(byte[] prefix, int numberOfProbes, Random random) {
+		byte[] siteswapArray = new byte[mPeriodLength];
+		byte[] interfaceArray = new byte[mPeriodLength];
+		int[] candidates = new int[Math.max(mMaxThrow + 1, 1)];
+		double nodes = 0;
+		double results = 0;
+		long visitedNodes = 0;
+		int probe = 0;
+		long startTime = System.nanoTime();
+
+		for (; probe < numberOfProbes && !Thread.currentThread().isInterrupted(); ++probe) {
+			Arrays.fill(siteswapArray, Siteswap.FREE);
+			Arrays.fill(interfaceArray, Siteswap.FREE);
+			Siteswap siteswap = new Siteswap(siteswapArray, mNumberOfJugglers);
+			Siteswap siteswapInterface = new Siteswap(interfaceArray, mNumberOfJugglers);
+			double weight = 1;
+			int uniqueRepresentationIndex = 0;
+			for (int i = 0; i < prefix.length; ++i) {
+				int uniqeMax = (i == 0) ? mMaxThrow + 1 : siteswap.at(uniqueRepresentationIndex);
+				siteswap.set(i, prefix[i]);
+				siteswapInterface.set(i + prefix[i], prefix[i]);
+				uniqueRepresentationIndex = (prefix[i] == uniqeMax) ? uniqueRepresentationIndex + 1 : 0;
+			}
+			nodes += weight;
+			visitedNodes++;
+
+			for (int currentIndex = prefix.length; ; ++currentIndex) {
+				if (currentIndex == mPeriodLength) {
+					if (uniqueRepresentationIndex == 0 && matchesFilters(siteswap, siteswapInterface))
+						results += weight;
+					break;
+				}
+				if (currentIndex != 0 &&
+						!matchesFiltersPartialSitswap(siteswap, siteswapInterface, currentIndex - 1))
+					break;
+
+				int min, max, uniqeMax;
+				if (currentIndex == 0) {
+					min = mNumberOfObjects;
+					max = getFirstThrowUpperBound();
+					uniqeMax = mMaxThrow + 1;
+				}
+				else {
+					uniqeMax = siteswap.at(uniqueRepresentationIndex);
+					min = getLowerThrowBound(siteswap, siteswapInterface, currentIndex);
+					max = getUpperThrowBound(siteswap, siteswapInterface, currentIndex, uniqeMax);
+				}
+
+				int numberOfCandidates = 0;
+				for (int value = min; value <= max; ++value) {
+					if (siteswapInterface.at(currentIndex + value) == Siteswap.FREE)
+						candidates[numberOfCandidates++] = value;
+				}
+				if (numberOfCandidates == 0)
+					break;
+
+				int value = candidates[random.nextInt(numberOfCandidates)];
+				weight *= numberOfCandidates;
+				nodes += weight;
+				visitedNodes++;
+				siteswap.set(currentIndex, value);
+				siteswapInterface.set(currentIndex + value, value);
+				uniqueRepresentationIndex = (value == uniqeMax) ? uniqueRepresentationIndex + 1 : 0;
+			}
+		}
+
+		if (probe == 0)
+			return new SearchTreeEstimate(0, 0, 0, 0);
+		double secondsPerNode = (System.nanoTime() - startTime) / 1e9 / visitedNodes;
+		return new SearchTreeEstimate(nodes / probe, results / probe,
+				secondsPerNode * nodes / probe, probe);
+	}
+
+	/**
+	 * Returns false, if an timeout occured, the maximum number of siteswaps is
+	 * reached or some error occurred. The siteswap calculation is then recursively
+	 * aborted. Returns true on normal, to indicate, that the siteswap search
+	 * shall be continued.
+	 * */
+	private boolean backtracking(Siteswap siteswap, Siteswap siteswapInterface,
+								 int currentIndex, int uniqueRepresentationIndex) {
+
+		mBacktrackingCount++;
+		if (mRecorder != null)
+			mRecorder.onNode(siteswap, currentIndex);
+		if (mBacktrackingCount % 1000 == 0 && (mIsCancelled ||
+				System.currentTimeMillis() - mStartTime > mTimeoutMillis)) {
+			saveCheckpoint(siteswap, currentIndex, false);
+			return false;
+		}
+
+		if (mShardEndPrefix != null && currentIndex == mShardEndPrefix.length &&
+				GenerationShard.comparePrefix(siteswap, mShardEndPrefix) >= 0) {
+			// Nodes are visited in ascending order, all following ones are behind the shard
+			mIsShardEndReached = true;
+			return false;
+		}
+
+		if (mIsResuming && currentIndex == mResumeCheckpoint.getPrefix().length) {
+			// End of the resume path reached. Continue normal search from here on.
+			mIsResuming = false;
+			if (mResumeCheckpoint.isPrefixExplored())
+				return true;
+		}
+
+		if (currentIndex == mPeriodLength) {
+
+			if (uniqueRepresentationIndex != 0) {
+				// Representation is not unique or siteswap has shorter period.
+				// Go a step back and continue searching...
+				if (mRecorder != null)
+					mRecorder.onUniqueRepresentationReject();
+				return true;
+			}
+			if (mIsDeltaGeneration && !isDeltaSiteswap(siteswap)) {
+				// Already contained in the cached results
+				return true;
+			}
+			if (mRecorder == null ? matchesFilters(siteswap, siteswapInterface) :
+					recordMatchesFilters(siteswap, siteswapInterface, -1)) {
+				mNumberOfResults++;
+				if (!addResult(siteswap)) {
+					saveCheckpoint(siteswap, currentIndex, true);
+					return false; // Aborted by sink
+				}
+				if (mNumberOfResults >= mMaxResults || mIsRandomGeneration) {
+					saveCheckpoint(siteswap, currentIndex, true);
+					return false; // Abort if max_results reached
+				}
+			}
+			// A filter did not match. Go a step back and continue searching...
+			return true;
+		}
+		else { // Not last index
+
+			if (currentIndex != 0) {
+				if (mRecorder == null ?
+						!matchesFiltersPartialSitswap(siteswap, siteswapInterface, currentIndex - 1) :
+						!recordMatchesFilters(siteswap, siteswapInterface, currentIndex - 1)) {
+					// Go a step back and continue searching...
+					return true;
+				}
+			}
+		}
+
+		int min, max, uniqeMax;
+
+		if (currentIndex == 0) {
+			min = mNumberOfObjects;
+			if (mIsRandomGeneration)
+				min = mMaxThrow;
+			max = getFirstThrowUpperBound();
+			uniqeMax = mMaxThrow + 1; // same value as max would result in wrong index calculation
+			// Without a lower minimum throw, only a new maximum throw can lead to new siteswaps
+			if (mIsDeltaGeneration && mMinThrow == mCachedMinThrow && min <= mCachedMaxThrow)
+				min = mCachedMaxThrow + 1;
+		}
+		else {
+			uniqeMax = siteswap.at(uniqueRepresentationIndex);
+			min = getLowerThrowBound(siteswap, siteswapInterface, currentIndex);
+			max = getUpperThrowBound(siteswap, siteswapInterface, currentIndex, uniqeMax);
+			if (mRecorder != null) {
+				int unboundedValues = uniqeMax - mMinThrow + 1;
+				int values = (max >= min) ? max - min + 1 : 0;
+				if (values < unboundedValues)
+					mRecorder.onSumBoundPrune(currentIndex, unboundedValues - values);
+			}
+		}
+
+		if (mIsResuming)
+			min = mResumeCheckpoint.getPrefix()[currentIndex];
+
+		for (int value = min; value <= max; ++value) {
+
+			if (mIsRandomGeneration)
+				value = mRandom.nextInt(max - min + 1) + min;
+
+			if (siteswapInterface.at(currentIndex + value) != Siteswap.FREE) {
+				if (mRecorder != null)
+					mRecorder.onCollisionPrune(currentIndex);
+				// A resume prefix, that is not a node (e.g. of a shard token), ends here
+				mIsResuming = false;
+				continue;
+			}
+
+			siteswap.set(currentIndex, value);
+			siteswapInterface.set(currentIndex + value, value);
+			int nextUniqueIndex = (value == uniqeMax) ? uniqueRepresentationIndex + 1 : 0;
+			if (!backtracking(siteswap, siteswapInterface, currentIndex + 1, nextUniqueIndex))
+				return false;
+			mIsResuming = false;
+			siteswapInterface.set(currentIndex + value, Siteswap.FREE);
+		}
+
+		siteswap.set(currentIndex, Siteswap.FREE); // reset value for backtracking
+
+
+		return true;
+
+	}
+
+	private boolean addResult(Siteswap siteswap) {
+		if (mIsStoringResults)
+			storeResult(siteswap);
+		if (mSink != null)
+			return mSink.onSiteswapGenerated(siteswap);
+		return true;
+	}
+
+	private boolean matchesFilters(Siteswap siteswap, Siteswap siteswapInterface) {
+		if (mFilters == null)
+			return true;
+		for (int i = 0; i < mFilters.length; ++i) {
+			if (!mFilters[i].isFulfilled(siteswap, siteswapInterface))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Same as matchesFilters (index -1) or matchesFiltersPartialSitswap, but reports
+	 * the rejecting filter and the time to the recorder.
+	 * */
+	private boolean recordMatchesFilters(Siteswap siteswap, Siteswap siteswapInterface, int index) {
+		if (mFilters == null)
+			return true;
+		long startNanos = System.nanoTime();
+		boolean isMatching = true;
+		for (int filterIndex = 0; filterIndex < mFilters.length; ++filterIndex) {
+			Filter filter = mFilters[filterIndex];
+			if (index < 0 ? !filter.isFulfilled(siteswap, siteswapInterface) :
+					!filter.isPartlyFulfilled(siteswap, siteswapInterface, index)) {
+				if (index < 0)
+					mRecorder.onFilterReject(filterIndex);
+				else
+					mRecorder.onPartialFilterReject(filterIndex, index + 1);
+				isMatching = false;
+				break;
+			}
+		}
+		mRecorder.onFilterTime(System.nanoTime() - startNanos);
+		return isMatching;
+	}
+
+	private boolean matchesFiltersPartialSitswap(Siteswap siteswap, Siteswap siteswapInterface,
+												 int index) {
+		if (mFilters == null)
+			return true;
+		for (int i = 0; i < mFilters.length; ++i) {
+			if (!mFilters[i].isPartlyFulfilled(siteswap, siteswapInterface, index))
+				return false;
+		}
+		return true;
+	}
+}
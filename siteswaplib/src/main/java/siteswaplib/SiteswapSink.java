@@ -0,0 +1,14 @@
+package siteswaplib;
+
+/**
+ * Receives siteswaps from the SiteswapGenerator while the search is running.
+ */
+public interface SiteswapSink {
+
+	/**
+	 * Called for every generated siteswap in generation order. The siteswap object
+	 * may be reused by the generator after the call returns, so it has to be copied
+	 * if it is kept. Returns false to abort the generation.
+	 * */
+	boolean onSiteswapGenerated(Siteswap siteswap);
+}
@@ -0,0 +1,141 @@
+package siteswaplib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the serialized format, lowerBound() and iterator(start) of
+ * CompressedSiteswapList against a plain list of the same siteswaps.
+ */
+public class CompressedSiteswapListTest {
+
+	private static final int[] BLOCK_SIZES = {1, 3, CompressedSiteswapList.DEFAULT_BLOCK_SIZE};
+
+	/**
+	 * Ascending siteswaps of different lengths, with throws, that fit into a
+	 * nibble, and higher ones, that are stored escaped.
+	 * */
+	private static List<Siteswap> createSiteswaps() {
+		List<Siteswap> siteswaps = new ArrayList<Siteswap>();
+		siteswaps.addAll(generate(5, 10, 2, 7, 2));
+		siteswaps.addAll(generate(3, 20, 0, 12, 2));
+		return siteswaps;
+	}
+
+	private static List<Siteswap> generate(int period, int max, int min, int objects, int jugglers) {
+		SiteswapGenerator generator = new SiteswapGenerator(period, max, min, objects, jugglers,
+				new LinkedList<Filter>());
+		generator.setMaxResults(Integer.MAX_VALUE);
+		generator.generateSiteswaps();
+		return generator.getSiteswaps();
+	}
+
+	@Test
+	public void roundTripKeepsAllSiteswaps() {
+		List<Siteswap> siteswaps = createSiteswaps();
+		for (int blockSize : BLOCK_SIZES) {
+			CompressedSiteswapList list = createList(siteswaps, blockSize);
+			CompressedSiteswapList copy = CompressedSiteswapList.fromByteArray(list.toByteArray());
+			assertEquals(blockSize, copy.getBlockSize());
+			assertEquals(2, copy.getNumberOfJugglers());
+			assertEquals(siteswaps.size(), copy.size());
+			assertEquals(siteswaps, toList(copy.iterator()));
+			for (int i = 0; i < siteswaps.size(); ++i)
+				assertEquals(siteswaps.get(i), copy.get(i));
+
+			// Appending continues the front coding of the last entry
+			copy.add(new Siteswap("k00", 2));
+			assertEquals(new Siteswap("k00", 2), copy.get(siteswaps.size()));
+			assertEquals(siteswaps.get(siteswaps.size() - 1), copy.get(siteswaps.size() - 1));
+		}
+
+		CompressedSiteswapList empty = CompressedSiteswapList.fromByteArray(
+				new CompressedSiteswapList(3).toByteArray());
+		assertEquals(0, empty.size());
+		assertFalse(empty.iterator().hasNext());
+	}
+
+	@Test
+	public void lowerBoundFindsFirstSiteswapNotSmaller() {
+		List<Siteswap> siteswaps = generate(5, 10, 2, 7, 2);
+		for (int blockSize : BLOCK_SIZES) {
+			CompressedSiteswapList list = createList(siteswaps, blockSize);
+			for (int i = 0; i < siteswaps.size(); ++i) {
+				assertEquals(i, list.lowerBound(siteswaps.get(i)));
+				assertTrue(list.contains(siteswaps.get(i)));
+			}
+			// Between the results and outside of them
+			assertEquals(0, list.lowerBound(new Siteswap("00000", 2)));
+			assertEquals(siteswaps.size(), list.lowerBound(new Siteswap("bbbbb", 2)));
+			Siteswap missing = new Siteswap("a6666", 2);
+			int index = list.lowerBound(missing);
+			assertFalse(list.contains(missing));
+			assertTrue(index == 0 || siteswaps.get(index - 1).compareTo(missing) < 0);
+			assertTrue(index == siteswaps.size() || siteswaps.get(index).compareTo(missing) > 0);
+		}
+	}
+
+	@Test
+	public void iteratorStartsAtIndex() {
+		List<Siteswap> siteswaps = createSiteswaps();
+		for (int blockSize : BLOCK_SIZES) {
+			CompressedSiteswapList list = createList(siteswaps, blockSize);
+			for (int start = 0; start <= siteswaps.size(); ++start) {
+				Iterator<Siteswap> it = list.iterator(start);
+				if (start < siteswaps.size())
+					assertEquals(siteswaps.get(start), it.next());
+				else
+					assertFalse(it.hasNext());
+			}
+			assertEquals(siteswaps.subList(37, siteswaps.size()), toList(list.iterator(37)));
+		}
+	}
+
+	@Test
+	public void corruptInputIsRejected() {
+		byte[] bytes = createList(createSiteswaps(), 3).toByteArray();
+		for (int length = 0; length < bytes.length; ++length)
+			assertRejected(Arrays.copyOf(bytes, length));
+
+		// Header: magic (4 bytes), version, block size, jugglers, size (2 bytes)
+		byte[] wrongSize = bytes.clone();
+		wrongSize[7]++;
+		assertRejected(wrongSize);
+		byte[] hugeSize = bytes.clone();
+		hugeSize[8] = 0x7f;
+		assertRejected(hugeSize);
+		byte[] noBlocks = bytes.clone();
+		noBlocks[5] = 0;
+		assertRejected(noBlocks);
+	}
+
+	private static void assertRejected(byte[] bytes) {
+		try {
+			CompressedSiteswapList.fromByteArray(bytes);
+			fail("Accepted corrupt input of " + bytes.length + " bytes");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+
+	private static CompressedSiteswapList createList(List<Siteswap> siteswaps, int blockSize) {
+		CompressedSiteswapList list = new CompressedSiteswapList(2, blockSize);
+		for (Siteswap siteswap : siteswaps)
+			list.add(siteswap);
+		return list;
+	}
+
+	private static List<Siteswap> toList(Iterator<Siteswap> it) {
+		List<Siteswap> siteswaps = new ArrayList<Siteswap>();
+		while (it.hasNext())
+			siteswaps.add(it.next());
+		return siteswaps;
+	}
+}
@@ -0,0 +1,354 @@
+package siteswaplib;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Randomized comparison of all ways to get the siteswaps of a parameter set with
+ * the backtracking search of SiteswapGenerator. Parameters and filter lists are
+ * drawn from a seeded Random. If an engine disagrees, the case is shrunk to a
+ * minimal failing case, which is reported in the format of FilterListFormat.
+ *
+ * New engines only have to be added to ENGINES.
+ */
+public class DifferentialEngineTest {
+
+	private static final long SEED = 20171029;
+	private static final int NUMBER_OF_CASES = 300;
+
+	private static class Case {
+		int periodLength;
+		int maxThrow;
+		int minThrow;
+		int numberOfObjects;
+		int numberOfJugglers;
+		LinkedList<Filter> filters;
+
+		Case copy() {
+			Case copy = new Case();
+			copy.periodLength = periodLength;
+			copy.maxThrow = maxThrow;
+			copy.minThrow = minThrow;
+			copy.numberOfObjects = numberOfObjects;
+			copy.numberOfJugglers = numberOfJugglers;
+			copy.filters = new LinkedList<Filter>(filters);
+			return copy;
+		}
+
+		SiteswapGenerator createGenerator() {
+			SiteswapGenerator generator = new SiteswapGenerator(periodLength, maxThrow, minThrow,
+					numberOfObjects, numberOfJugglers, new LinkedList<Filter>(filters));
+			generator.setMaxResults(Integer.MAX_VALUE);
+			generator.setTimeoutSeconds(Integer.MAX_VALUE / 1000);
+			return generator;
+		}
+
+		@Override
+		public String toString() {
+			return "period " + periodLength + ", max " + maxThrow + ", min " + minThrow +
+					", objects " + numberOfObjects + ", jugglers " + numberOfJugglers +
+					", filters " + FilterListFormat.encode(filters);
+		}
+	}
+
+	private interface Engine {
+		String getName();
+		List<Siteswap> generate(Case c);
+	}
+
+	private static final Engine BACKTRACKING = new Engine() {
+		public String getName() {
+			return "backtracking";
+		}
+		public List<Siteswap> generate(Case c) {
+			SiteswapGenerator generator = c.createGenerator();
+			generator.generateSiteswaps();
+			return generator.getSiteswaps();
+		}
+	};
+
+	private static final Engine[] ENGINES = {
+		new Engine() {
+			// Enumerates all throw sequences and checks the definition of the results
+			public String getName() {
+				return "brute force";
+			}
+			public List<Siteswap> generate(Case c) {
+				List<Siteswap> siteswaps = new ArrayList<Siteswap>();
+				byte[] throwsArray = new byte[c.periodLength];
+				java.util.Arrays.fill(throwsArray, (byte) c.minThrow);
+				while (true) {
+					Siteswap siteswap = new Siteswap(throwsArray.clone(), c.numberOfJugglers);
+					if (isCanonicalResult(siteswap, c))
+						siteswaps.add(siteswap);
+					int i = c.periodLength - 1;
+					while (i >= 0 && throwsArray[i] == c.maxThrow) {
+						throwsArray[i] = (byte) c.minThrow;
+						i--;
+					}
+					if (i < 0)
+						return siteswaps;
+					throwsArray[i]++;
+				}
+			}
+		},
+		new Engine() {
+			public String getName() {
+				return "sink";
+			}
+			public List<Siteswap> generate(Case c) {
+				final List<Siteswap> siteswaps = new ArrayList<Siteswap>();
+				SiteswapGenerator generator = c.createGenerator();
+				generator.setStoringResults(false);
+				generator.setSiteswapSink(new SiteswapSink() {
+					public boolean onSiteswapGenerated(Siteswap siteswap) {
+						siteswaps.add(new Siteswap(siteswap));
+						return true;
+					}
+				});
+				generator.generateSiteswaps();
+				return siteswaps;
+			}
+		},
+		new Engine() {
+			// Pages of three siteswaps, continued via checkpoint tokens
+			public String getName() {
+				return "resumed pages";
+			}
+			public List<Siteswap> generate(Case c) {
+				List<Siteswap> siteswaps = new ArrayList<Siteswap>();
+				SiteswapGenerator generator = c.createGenerator();
+				generator.setMaxResults(3);
+				while (true) {
+					generator.generateSiteswaps();
+					siteswaps.addAll(generator.getSiteswaps());
+					GenerationCheckpoint checkpoint = generator.getCheckpoint();
+					if (checkpoint == null)
+						return siteswaps;
+					generator = c.createGenerator();
+					generator.setMaxResults(3);
+					generator.resumeFrom(GenerationCheckpoint.fromToken(checkpoint.toToken()));
+				}
+			}
+		},
+		new Engine() {
+			// Narrower throw range first, then the widened range as delta
+			public String getName() {
+				return "delta";
+			}
+			public List<Siteswap> generate(Case c) {
+				SiteswapGenerator generator = c.createGenerator();
+				generator.setMaxThrow(Math.max(c.maxThrow - 1, c.numberOfObjects));
+				generator.setMinThrow(Math.min(c.minThrow + 1, c.numberOfObjects));
+				generator.generateSiteswaps();
+				generator.setMaxThrow(c.maxThrow);
+				generator.setMinThrow(c.minThrow);
+				generator.generateSiteswaps();
+				return generator.getSiteswaps();
+			}
+		},
+		new Engine() {
+			// Every shard on its own generator, passed as token. Overlapping shards
+			// show up as duplicates.
+			public String getName() {
+				return "shards";
+			}
+			public List<Siteswap> generate(Case c) {
+				List<Siteswap> siteswaps = new ArrayList<Siteswap>();
+				int numberOfShards = 1 + (c.periodLength + c.numberOfObjects) % 7;
+				for (GenerationShard shard : c.createGenerator().createShards(numberOfShards)) {
+					GenerationShard token = GenerationShard.fromToken(shard.toToken());
+					SiteswapGenerator generator = c.createGenerator();
+					generator.setShard(token);
+					generator.generateSiteswaps();
+					siteswaps.addAll(generator.getSiteswaps());
+				}
+				return siteswaps;
+			}
+		},
+		new Engine() {
+			// Unfiltered results, filtered by a catalog query
+			public String getName() {
+				return "catalog";
+			}
+			public List<Siteswap> generate(Case c) {
+				Case unfiltered = c.copy();
+				unfiltered.filters.clear();
+				SiteswapCatalog catalog = new SiteswapCatalog(BACKTRACKING.generate(unfiltered),
+						c.numberOfJugglers);
+				return catalog.query(c.filters);
+			}
+		},
+	};
+
+	@Test
+	public void enginesAgreeWithBacktracking() {
+		Random random = new Random(SEED);
+		for (int i = 0; i < NUMBER_OF_CASES; ++i) {
+			Case c = randomCase(random);
+			for (Engine engine : ENGINES) {
+				if (disagrees(engine, c)) {
+					Case minimalCase = shrink(engine, c);
+					fail(engine.getName() + " disagrees with backtracking for " + minimalCase +
+							"\nbacktracking: " + sorted(BACKTRACKING.generate(minimalCase)) +
+							"\n" + engine.getName() + ": " + sorted(engine.generate(minimalCase)) +
+							"\noriginal case: " + c);
+				}
+			}
+		}
+	}
+
+	private static boolean disagrees(Engine engine, Case c) {
+		return !sorted(BACKTRACKING.generate(c)).equals(sorted(engine.generate(c)));
+	}
+
+	/**
+	 * Greedily applies simplifications, as long as the engine still disagrees
+	 * */
+	private static Case shrink(Engine engine, Case c) {
+		boolean isShrunk = true;
+		while (isShrunk) {
+			isShrunk = false;
+			for (Case candidate : simplifications(c)) {
+				if (disagrees(engine, candidate)) {
+					c = candidate;
+					isShrunk = true;
+					break;
+				}
+			}
+		}
+		return c;
+	}
+
+	private static List<Case> simplifications(Case c) {
+		List<Case> candidates = new ArrayList<Case>();
+		for (int i = 0; i < c.filters.size(); ++i) {
+			Case candidate = c.copy();
+			candidate.filters.remove(i);
+			candidates.add(candidate);
+		}
+		if (c.periodLength > 1) {
+			Case candidate = c.copy();
+			candidate.periodLength--;
+			candidates.add(candidate);
+		}
+		if (c.maxThrow > c.numberOfObjects) {
+			Case candidate = c.copy();
+			candidate.maxThrow--;
+			candidates.add(candidate);
+		}
+		if (c.minThrow < c.numberOfObjects) {
+			Case candidate = c.copy();
+			candidate.minThrow++;
+			candidates.add(candidate);
+		}
+		if (c.numberOfObjects > c.minThrow && c.numberOfObjects > 1) {
+			Case candidate = c.copy();
+			candidate.numberOfObjects--;
+			candidate.maxThrow--;
+			candidates.add(candidate);
+		}
+		if (c.numberOfJugglers > 1) {
+			Case candidate = c.copy();
+			candidate.numberOfJugglers--;
+			candidates.add(candidate);
+		}
+		return candidates;
+	}
+
+	private static Case randomCase(Random random) {
+		Case c = new Case();
+		c.numberOfJugglers = 1 + random.nextInt(3);
+		c.periodLength = 1 + random.nextInt(6);
+		c.numberOfObjects = 1 + random.nextInt(7);
+		c.maxThrow = c.numberOfObjects + random.nextInt(4);
+		c.minThrow = random.nextInt(c.numberOfObjects + 1);
+		c.filters = new LinkedList<Filter>();
+		if (random.nextBoolean())
+			Filter.addDefaultFilters(c.filters, c.numberOfJugglers, c.minThrow);
+		int numberOfFilters = random.nextInt(4);
+		for (int i = 0; i < numberOfFilters; ++i)
+			c.filters.add(randomFilter(random, c));
+		return c;
+	}
+
+	private static Filter randomFilter(Random random, Case c) {
+		PatternFilter.Type patternType = random.nextBoolean() ?
+				PatternFilter.Type.INCLUDE : PatternFilter.Type.EXCLUDE;
+		switch (random.nextInt(5)) {
+			case 0:
+				NumberFilter.Type[] types = NumberFilter.Type.values();
+				return new NumberFilter(randomPatternValue(random, c),
+						types[random.nextInt(types.length)], random.nextInt(3));
+			case 1:
+				return new PatternFilter(randomPattern(random, c), patternType);
+			case 2:
+				return new InterfaceFilter(randomPattern(random, c), patternType);
+			case 3:
+				return new LocalPatternFilter(randomPattern(random, c), patternType, c.numberOfJugglers);
+			default:
+				return new LocalInterfaceFilter(randomPattern(random, c), patternType, c.numberOfJugglers);
+		}
+	}
+
+	private static Siteswap randomPattern(Random random, Case c) {
+		byte[] pattern = new byte[1 + random.nextInt(3)];
+		for (int i = 0; i < pattern.length; ++i) {
+			pattern[i] = (random.nextInt(4) == 0) ? Siteswap.DONT_CARE : randomPatternValue(random, c);
+		}
+		return new Siteswap(pattern, c.numberOfJugglers);
+	}
+
+	private static byte randomPatternValue(Random random, Case c) {
+		int value = random.nextInt(c.maxThrow - c.minThrow + 3);
+		if (value == 0)
+			return Siteswap.PASS;
+		if (value == 1)
+			return Siteswap.SELF;
+		return (byte) (c.minThrow + value - 2);
+	}
+
+	/**
+	 * A result has the average number of objects, is valid, fulfills all filters
+	 * and is greater than all of its other rotations. The last condition also
+	 * excludes siteswaps with a shorter period.
+	 * */
+	private static boolean isCanonicalResult(Siteswap siteswap, Case c) {
+		int sum = 0;
+		for (int i = 0; i < c.periodLength; ++i)
+			sum += siteswap.at(i);
+		if (sum != c.periodLength * c.numberOfObjects || !siteswap.isValid())
+			return false;
+		for (int rotation = 1; rotation < c.periodLength; ++rotation) {
+			for (int i = 0; i < c.periodLength; ++i) {
+				int difference = siteswap.at(i) - siteswap.at(i + rotation);
+				if (difference < 0)
+					return false;
+				if (difference > 0)
+					break;
+				if (i == c.periodLength - 1)
+					return false;
+			}
+		}
+		for (Filter filter : c.filters) {
+			if (!filter.isFulfilled(siteswap))
+				return false;
+		}
+		return true;
+	}
+
+	private static List<String> sorted(List<Siteswap> siteswaps) {
+		List<String> strings = new ArrayList<String>();
+		for (Siteswap siteswap : siteswaps)
+			strings.add(siteswap.toString());
+		Collections.sort(strings);
+		return strings;
+	}
+}
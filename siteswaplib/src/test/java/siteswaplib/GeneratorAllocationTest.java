@@ -0,0 +1,87 @@
+package siteswaplib;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Checks with the allocation counter of the current thread, that the search of
+ * SiteswapGenerator does not allocate per node. A search may only allocate a
+ * constant amount (search arrays, filter array, checkpoint) and the result store,
+ * which grows by doubling.
+ */
+public class GeneratorAllocationTest {
+
+	private static final long MAX_BYTES_PER_SEARCH = 16 * 1024;
+	// The checkpoint, that is saved for every result of random generation
+	private static final long MAX_CHECKPOINT_BYTES = 128;
+	private static final int MIN_NODES = 100000;
+	private static final int PERIOD_LENGTH = 11;
+
+	private com.sun.management.ThreadMXBean mThreadBean;
+
+	@Before
+	public void setUp() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		mThreadBean = (com.sun.management.ThreadMXBean) bean;
+		assumeTrue(mThreadBean.isThreadAllocatedMemorySupported());
+		mThreadBean.setThreadAllocatedMemoryEnabled(true);
+	}
+
+	@Test
+	public void filteredSearchWithStoredResults() {
+		SiteswapGenerator generator = createGenerator("1;NG:-2:1;NE:3:0;PI:P?P;FE:88;KI:2:9P");
+		// The store grows by doubling, i.e. at most four bytes per stored throw are allocated
+		checkAllocation(generator, 4 * PERIOD_LENGTH);
+	}
+
+	@Test
+	public void searchWithSinkOnly() {
+		SiteswapGenerator generator = createGenerator("1;NG:-2:1;NE:3:0;FE:88");
+		generator.setStoringResults(false);
+		generator.setSiteswapSink(new SiteswapSink() {
+			public boolean onSiteswapGenerated(Siteswap siteswap) {
+				return true;
+			}
+		});
+		checkAllocation(generator, 0);
+	}
+
+	@Test
+	public void randomGeneration() {
+		SiteswapGenerator generator = createGenerator("1;NG:-2:1;NE:3:0");
+		generator.setRandomGeneration(true);
+		generator.setMaxResults(20000);
+		checkAllocation(generator, 4 * PERIOD_LENGTH + MAX_CHECKPOINT_BYTES);
+	}
+
+	private SiteswapGenerator createGenerator(String filters) {
+		SiteswapGenerator generator = new SiteswapGenerator(PERIOD_LENGTH, 10, 2, 7, 2,
+				FilterListFormat.decode(filters));
+		generator.setMaxResults(Integer.MAX_VALUE);
+		generator.setTimeoutSeconds(Integer.MAX_VALUE / 1000);
+		return generator;
+	}
+
+	private void checkAllocation(SiteswapGenerator generator, long maxBytesPerResult) {
+		// Warm up, so that class loading and lazy initialisation are not counted
+		generator.generateSiteswaps();
+
+		long threadId = Thread.currentThread().getId();
+		long startBytes = mThreadBean.getThreadAllocatedBytes(threadId);
+		generator.generateSiteswaps();
+		long bytes = mThreadBean.getThreadAllocatedBytes(threadId) - startBytes;
+
+		long nodes = generator.getBacktrackingCount();
+		long results = generator.getNumberOfResults();
+		assertTrue("Too few nodes for a meaningful check: " + nodes, nodes >= MIN_NODES);
+		long maxBytes = MAX_BYTES_PER_SEARCH + results * maxBytesPerResult;
+		assertTrue(String.format("%d bytes allocated for %d nodes and %d results (%.3f bytes per node)",
+				bytes, nodes, results, (double) bytes / nodes), bytes <= maxBytes);
+	}
+}
@@ -0,0 +1,175 @@
+package siteswaplib;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs SiteswapGenerator for all parameter and filter combinations in
+ * golden_counts.txt and compares the number of results and a hash of the results
+ * with the golden values.
+ *
+ * The best wall time of a few runs and the number of nodes are written to a local
+ * baseline file (system property siteswaplib.golden.baseline, default
+ * build/golden-count-baseline.txt), if it does not exist yet. Later runs fail, if
+ * a combination is slower than the baseline by more than the allowed factor
+ * (siteswaplib.golden.maxSlowdown, default 0.5, i.e. 50%). Set
+ * siteswaplib.golden.updateBaseline to true to replace the baseline.
+ */
+public class GoldenCountTest {
+
+	private static final String GOLDEN_FILE = "golden_counts.txt";
+	private static final int REPETITIONS = 3;
+	// Shorter runs are dominated by noise (and by the JIT state left behind by other
+	// tests in the same JVM) and are not checked for slowdowns
+	private static final long MIN_CHECKED_NANOS = 20000000;
+
+	private static class GoldenRun {
+		String key;
+		int periodLength;
+		int maxThrow;
+		int minThrow;
+		int numberOfObjects;
+		int numberOfJugglers;
+		String filters;
+		int count;
+		String hash;
+	}
+
+	@Test
+	public void generatorMatchesGoldenCounts() throws IOException {
+		File baselineFile = new File(System.getProperty("siteswaplib.golden.baseline",
+				"build/golden-count-baseline.txt"));
+		double maxSlowdown = Double.parseDouble(System.getProperty("siteswaplib.golden.maxSlowdown", "0.5"));
+		boolean isUpdatingBaseline = Boolean.getBoolean("siteswaplib.golden.updateBaseline") ||
+				!baselineFile.exists();
+		Map<String, long[]> baseline = isUpdatingBaseline ?
+				new HashMap<String, long[]>() : readBaseline(baselineFile);
+
+		StringBuilder failures = new StringBuilder();
+		StringBuilder newBaseline = new StringBuilder();
+		for (GoldenRun run : readGoldenRuns()) {
+			long bestNanos = Long.MAX_VALUE;
+			SiteswapGenerator generator = null;
+			for (int i = 0; i < REPETITIONS; ++i) {
+				generator = new SiteswapGenerator(run.periodLength, run.maxThrow, run.minThrow,
+						run.numberOfObjects, run.numberOfJugglers, FilterListFormat.decode(run.filters));
+				generator.setMaxResults(Integer.MAX_VALUE);
+				generator.setTimeoutSeconds(Integer.MAX_VALUE / 1000);
+				long startNanos = System.nanoTime();
+				generator.generateSiteswaps();
+				bestNanos = Math.min(bestNanos, System.nanoTime() - startNanos);
+			}
+
+			LinkedList<Siteswap> siteswaps = generator.getSiteswaps();
+			String hash = hash(siteswaps);
+			if (siteswaps.size() != run.count || !hash.equals(run.hash)) {
+				failures.append(String.format("%s: %d results with hash %s, expected %d with hash %s%n",
+						run.key, siteswaps.size(), hash, run.count, run.hash));
+			}
+
+			long nodes = generator.getBacktrackingCount();
+			long[] baselineRun = baseline.get(run.key);
+			if (baselineRun != null && bestNanos > MIN_CHECKED_NANOS &&
+					bestNanos > baselineRun[0] * (1 + maxSlowdown)) {
+				failures.append(String.format("%s: %.1f ms, baseline %.1f ms (%d nodes, baseline %d)%n",
+						run.key, bestNanos / 1e6, baselineRun[0] / 1e6, nodes, baselineRun[1]));
+			}
+			newBaseline.append(bestNanos).append(' ').append(nodes).append(' ').append(run.key).append('\n');
+		}
+
+		if (isUpdatingBaseline)
+			writeBaseline(baselineFile, newBaseline.toString());
+		assertTrue("Golden count check failed:\n" + failures, failures.length() == 0);
+	}
+
+	/**
+	 * 64 bit FNV-1a of all siteswaps, each followed by '\n'
+	 * */
+	static String hash(List<Siteswap> siteswaps) {
+		long hash = 0xcbf29ce484222325L;
+		for (Siteswap siteswap : siteswaps) {
+			String str = siteswap.toString() + "\n";
+			for (int i = 0; i < str.length(); ++i) {
+				hash ^= str.charAt(i);
+				hash *= 0x100000001b3L;
+			}
+		}
+		return String.format("%016x", hash);
+	}
+
+	private List<GoldenRun> readGoldenRuns() throws IOException {
+		InputStream stream = getClass().getResourceAsStream(GOLDEN_FILE);
+		assertNotNull("Missing resource " + GOLDEN_FILE, stream);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
+		List<GoldenRun> runs = new ArrayList<GoldenRun>();
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#"))
+					continue;
+				String[] fields = line.split(" ");
+				GoldenRun run = new GoldenRun();
+				run.periodLength = Integer.parseInt(fields[0]);
+				run.maxThrow = Integer.parseInt(fields[1]);
+				run.minThrow = Integer.parseInt(fields[2]);
+				run.numberOfObjects = Integer.parseInt(fields[3]);
+				run.numberOfJugglers = Integer.parseInt(fields[4]);
+				run.filters = fields[5];
+				run.count = Integer.parseInt(fields[6]);
+				run.hash = fields[7];
+				run.key = fields[0] + " " + fields[1] + " " + fields[2] + " " + fields[3] + " " +
+						fields[4] + " " + fields[5];
+				runs.add(run);
+			}
+		} finally {
+			reader.close();
+		}
+		return runs;
+	}
+
+	/**
+	 * Line format: nanos nodes key
+	 * */
+	private static Map<String, long[]> readBaseline(File file) throws IOException {
+		Map<String, long[]> baseline = new HashMap<String, long[]>();
+		BufferedReader reader = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split(" ", 3);
+				if (fields.length == 3)
+					baseline.put(fields[2], new long[]{Long.parseLong(fields[0]), Long.parseLong(fields[1])});
+			}
+		} finally {
+			reader.close();
+		}
+		return baseline;
+	}
+
+	private static void writeBaseline(File file, String baseline) throws IOException {
+		File directory = file.getAbsoluteFile().getParentFile();
+		if (directory != null)
+			directory.mkdirs();
+		FileWriter writer = new FileWriter(file);
+		try {
+			writer.write(baseline);
+		} finally {
+			writer.close();
+		}
+	}
+}
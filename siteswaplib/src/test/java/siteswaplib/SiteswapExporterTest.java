@@ -0,0 +1,88 @@
+package siteswaplib;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.EnumSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks, that the local column of the exporter matches the formatting of
+ * Siteswap.toLocalString().
+ */
+public class SiteswapExporterTest {
+
+	private Locale mDefaultLocale;
+
+	@Before
+	public void setUp() {
+		// Siteswap formats with the default locale, the exporter always uses '.'
+		mDefaultLocale = Locale.getDefault();
+		Locale.setDefault(Locale.US);
+	}
+
+	@After
+	public void tearDown() {
+		Locale.setDefault(mDefaultLocale);
+	}
+
+	@Test
+	public void localColumnMatchesSiteswap() throws IOException {
+		for (int jugglers = 1; jugglers <= 4; ++jugglers) {
+			List<Siteswap> siteswaps = generate(4, 9, 0, 5, jugglers);
+			assertFalse(siteswaps.isEmpty());
+
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			SiteswapExporter exporter = new SiteswapExporter(Channels.newChannel(out),
+					SiteswapExporter.Format.TEXT, EnumSet.of(SiteswapExporter.Column.LOCAL));
+			exporter.writeAll(siteswaps);
+			exporter.close();
+
+			String[] lines = out.toString("US-ASCII").split("\n");
+			assertEquals(siteswaps.size(), lines.length);
+			for (int i = 0; i < lines.length; ++i)
+				assertEquals(siteswaps.get(i).toString(), toLocalString(siteswaps.get(i)), lines[i]);
+		}
+	}
+
+	@Test
+	public void quartersAreRoundedHalfToEven() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		SiteswapExporter exporter = new SiteswapExporter(Channels.newChannel(out),
+				SiteswapExporter.Format.TEXT, EnumSet.of(SiteswapExporter.Column.LOCAL));
+		exporter.write(new Siteswap("1357", 4));
+		exporter.close();
+		assertEquals(toLocalString(new Siteswap("1357", 4)) + "\n", out.toString("US-ASCII"));
+		assertTrue(out.toString("US-ASCII").startsWith("0.2"));
+	}
+
+	/**
+	 * Local siteswaps of all jugglers without html tags and trailing spaces,
+	 * separated by '|'.
+	 * */
+	private static String toLocalString(Siteswap siteswap) {
+		StringBuilder str = new StringBuilder();
+		for (String local : siteswap.toLocalString()) {
+			if (str.length() != 0)
+				str.append(" | ");
+			str.append(local.replaceAll("<[^>]*>", "").trim());
+		}
+		return str.toString();
+	}
+
+	private static List<Siteswap> generate(int period, int max, int min, int objects, int jugglers) {
+		SiteswapGenerator generator = new SiteswapGenerator(period, max, min, objects, jugglers,
+				new LinkedList<Filter>());
+		generator.setMaxResults(Integer.MAX_VALUE);
+		generator.generateSiteswaps();
+		return generator.getSiteswaps();
+	}
+}